@@ -0,0 +1,133 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic inputs shared by the benchmarks: POMs of a given size, version strings in the shapes seen on Maven
+ * Central, and search responses in the search.maven.org {@code wt=xml} format.
+ */
+final class Fixtures {
+    static final long SEED = 0x5eed;
+
+    private static final String[] QUALIFIERS = {"", "", "", "", "-beta-1", "-RC1", "-rc2", "-alpha2", ".Final", "-jre", "-M3"};
+
+    private Fixtures() {
+    }
+
+    static String pom(int dependencyCount) {
+        final StringBuilder pom = new StringBuilder(256 + dependencyCount * 192)
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+            .append("    <modelVersion>4.0.0</modelVersion>\n")
+            .append("    <groupId>com.example.bench</groupId>\n")
+            .append("    <artifactId>bench-").append(dependencyCount).append("</artifactId>\n")
+            .append("    <version>1.0.0</version>\n")
+            .append("    <properties>\n");
+        for (int i = 0; i < dependencyCount; i += 2) {
+            pom.append("        <lib").append(i).append(".version>").append(version(i)).append("</lib").append(i).append(".version>\n");
+        }
+        pom.append("    </properties>\n")
+            .append("    <dependencies>\n");
+        for (int i = 0; i < dependencyCount; i++) {
+            pom.append("        <dependency>\n")
+                .append("            <groupId>com.example.group").append(i % 17).append("</groupId>\n")
+                .append("            <artifactId>lib").append(i).append("</artifactId>\n")
+                .append("            <version>").append(i % 2 == 0 ? "${lib" + i + ".version}" : version(i)).append("</version>\n");
+            if (i % 5 == 0) {
+                pom.append("            <scope>test</scope>\n");
+            }
+            pom.append("        </dependency>\n");
+        }
+        return pom.append("    </dependencies>\n")
+            .append("</project>\n")
+            .toString();
+    }
+
+    static Path writePom(Path directory, int dependencyCount) throws IOException {
+        final Path pomFile = directory.resolve("pom-%d.xml".formatted(dependencyCount));
+        Files.writeString(pomFile, pom(dependencyCount), StandardCharsets.UTF_8);
+        return pomFile;
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * @return {@code count} distinct version strings, in no particular order
+     */
+    static List<String> versions(int count) {
+        final Random random = new Random(SEED);
+        final List<String> versions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            versions.add("%d.%d.%d%s".formatted(i / 400, (i / 20) % 20, i % 20, QUALIFIERS[random.nextInt(QUALIFIERS.length)]));
+        }
+        return versions;
+    }
+
+    private static String version(int index) {
+        return "%d.%d.%d".formatted(1 + index % 4, index % 13, index % 7);
+    }
+
+    /**
+     * @return the {@code versionCount} versions of an artifact, newest first, published a day apart
+     */
+    static List<SearchRow> history(String groupId, String artifactId, int versionCount) {
+        final List<SearchRow> rows = new ArrayList<>(versionCount);
+        for (int ordinal = versionCount; ordinal > 0; ordinal--) {
+            rows.add(new SearchRow(groupId, artifactId, releaseVersion(ordinal), 1_500_000_000_000L + ordinal * 86_400_000L));
+        }
+        return rows;
+    }
+
+    /**
+     * @return the version published {@code ordinal}-th (starting at 1) in a {@link #history}
+     */
+    static String releaseVersion(int ordinal) {
+        return "%d.%d.%d".formatted(1 + ordinal / 100, (ordinal / 10) % 10, ordinal % 10);
+    }
+
+    /**
+     * Renders {@code rows} of a result set of {@code numFound} rows in the search.maven.org {@code wt=xml} format,
+     * including the fields the decoders skip.
+     */
+    static String searchResponse(List<SearchRow> rows, int numFound, int start) {
+        final StringBuilder response = new StringBuilder(512 + rows.size() * 400)
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<response>\n")
+            .append("<lst name=\"responseHeader\"><int name=\"status\">0</int><int name=\"QTime\">1</int>")
+            .append("<lst name=\"params\"><str name=\"core\">gav</str><str name=\"wt\">xml</str>")
+            .append("<str name=\"rows\">").append(rows.size()).append("</str></lst></lst>\n")
+            .append("<result name=\"response\" numFound=\"").append(numFound).append("\" start=\"").append(start).append("\">\n");
+        for (SearchRow row : rows) {
+            response.append("<doc>")
+                .append("<str name=\"a\">").append(row.artifactId()).append("</str>")
+                .append("<arr name=\"ec\"><str>-sources.jar</str><str>.pom</str><str>-javadoc.jar</str><str>.jar</str></arr>")
+                .append("<str name=\"g\">").append(row.groupId()).append("</str>")
+                .append("<str name=\"id\">").append(row.groupId()).append(':').append(row.artifactId()).append(':').append(row.version()).append("</str>")
+                .append("<str name=\"p\">jar</str>")
+                .append("<long name=\"timestamp\">").append(row.timestamp()).append("</long>")
+                .append("<arr name=\"tags\"><str>benchmark</str><str>fixture</str></arr>")
+                .append("<str name=\"v\">").append(row.version()).append("</str>")
+                .append("</doc>\n");
+        }
+        return response.append("</result>\n")
+            .append("</response>\n")
+            .toString();
+    }
+
+    record SearchRow(String groupId, String artifactId, String version, long timestamp) {
+    }
+}
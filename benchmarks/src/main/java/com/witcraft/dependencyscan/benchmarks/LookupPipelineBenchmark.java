@@ -0,0 +1,102 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.ArtifactVersionHistory;
+import com.witcraft.dependencyscan.CoalescingMvnRepository;
+import com.witcraft.dependencyscan.DefaultMvnRepository;
+import com.witcraft.dependencyscan.DependencyInfo;
+import com.witcraft.dependencyscan.MvnRepository;
+import com.witcraft.dependencyscan.RequestScheduler;
+import com.witcraft.dependencyscan.SearchResponseDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up the version histories of a project's dependencies end to end: HTTP requests through the request
+ * scheduler, response decoding, history indexing and the upgrade query the report makes, against a local stub of the
+ * search endpoint. Some artifacts appear several times at different versions, as they do across a reactor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupPipelineBenchmark {
+    private static final int ARTIFACT_COUNT = 40;
+
+    @Param({"1", "10"})
+    public int maxBatchSize;
+
+    @Param({"streaming", "dom"})
+    public String decoder;
+
+    private SearchStubServer server;
+
+    private MvnRepository repository;
+
+    private List<DependencyInfo> dependencies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Random random = new Random(Fixtures.SEED);
+        final Map<String, List<Fixtures.SearchRow>> histories = new HashMap<>();
+        dependencies = new ArrayList<>();
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            final String groupId = "com.example.group%d".formatted(i % 7);
+            final String artifactId = "library%d".formatted(i);
+            final int versionCount = 5 + random.nextInt(120);
+            histories.put(groupId + ":" + artifactId, Fixtures.history(groupId, artifactId, versionCount));
+            final int copies = (i % 4 == 0 ? 3 : 1);
+            for (int copy = 0; copy < copies; copy++) {
+                dependencies.add(
+                    DependencyInfo.builder()
+                        .withGroupId(groupId)
+                        .withArtifactId(artifactId)
+                        .withVersion(Fixtures.releaseVersion(1 + random.nextInt(versionCount)))
+                        .build()
+                );
+            }
+        }
+
+        server = new SearchStubServer(histories);
+        final DefaultMvnRepository searchRepository = DefaultMvnRepository.builder()
+            .withSearchUrl(server.getSearchUrl())
+            .withMaxBatchSize(maxBatchSize)
+            .withSearchResponseDecoder(decoder.equals("dom") ? SearchResponseDecoder.dom() : SearchResponseDecoder.streaming())
+            .withRequestScheduler(RequestScheduler.builder().withRateLimit(100_000, 1_000).build())
+            .build();
+        repository = CoalescingMvnRepository.of(searchRepository);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public void lookupAll(Blackhole blackhole) {
+        for (ArtifactVersionHistory versionHistory : repository.lookupAllArtifactVersions(dependencies)) {
+            blackhole.consume(versionHistory.getLatestUpgrade());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.DefaultPomScanner;
+import com.witcraft.dependencyscan.DependencyInfo;
+import com.witcraft.dependencyscan.XmlUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a POM into a DOM, and the full {@link DefaultPomScanner} pass over it (model resolution, property
+ * interpolation and dependency extraction), for a small POM and a huge one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PomParsingBenchmark {
+    @Param({"10", "2000"})
+    public int dependencyCount;
+
+    private Path directory;
+
+    private Path pomFile;
+
+    private Path localRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("pom-parsing-benchmark");
+        pomFile = Fixtures.writePom(directory, dependencyCount);
+        localRepository = Files.createDirectories(directory.resolve("repository"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Fixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Document loadDocument() {
+        return XmlUtil.loadXmlDocument(pomFile);
+    }
+
+    @Benchmark
+    public Map<String, DependencyInfo> scanDependencies() throws IOException, SAXException {
+        return DefaultPomScanner.builder(pomFile)
+            .withLocalRepository(localRepository)
+            .build()
+            .scanDependencyInfo();
+    }
+}
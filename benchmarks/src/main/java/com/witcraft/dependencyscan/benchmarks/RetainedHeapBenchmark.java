@@ -0,0 +1,100 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.ArtifactVersionHistory;
+import com.witcraft.dependencyscan.DependencyInfo;
+import com.witcraft.dependencyscan.SearchResponseDecoder;
+import com.witcraft.dependencyscan.SearchResponseHandler;
+import com.witcraft.dependencyscan.XmlUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by the version history of an artifact with 10k versions, reported as the {@code retainedBytes}
+ * secondary result. With {@code retainDocument} the parsed search response is kept alive alongside the history, as it
+ * was when every {@link DependencyInfo} held a reference to its {@code <doc>} element; without it only the compact
+ * rows are retained.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetainedHeapBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({"10000"})
+    public int versionCount;
+
+    @Param({"true", "false"})
+    public boolean retainDocument;
+
+    private byte[] response;
+
+    // Holds the last result so that it is still reachable while the heap is measured.
+    private Object[] retained;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        response = Fixtures.searchResponse(Fixtures.history("com.example", "library", versionCount), versionCount, 0)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void retainVersionHistory(RetainedBytes counters) throws IOException {
+        retained = null;
+        final long before = usedHeapAfterGc();
+
+        final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of("com.example", "library", "0.0.0");
+        SearchResponseDecoder.streaming().decode(new ByteArrayInputStream(response), new SearchResponseHandler() {
+            @Override
+            public void onResult(int numFound, int start) {
+            }
+
+            @Override
+            public boolean onDocument(String groupId, String artifactId, String version, long timestamp) {
+                versionHistory.addVersion(
+                    DependencyInfo.builder(versionHistory.getDependency())
+                        .withVersion(version)
+                        .withPublishDate(Instant.ofEpochMilli(timestamp))
+                        .build()
+                );
+                return true;
+            }
+        });
+        retained = new Object[]{versionHistory, (retainDocument ? XmlUtil.loadXmlDocument(new ByteArrayInputStream(response)) : null)};
+
+        counters.retainedBytes = usedHeapAfterGc() - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedBytes {
+        public long retainedBytes;
+    }
+}
@@ -0,0 +1,67 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.SearchResponseDecoder;
+import com.witcraft.dependencyscan.SearchResponseHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one page of search results with the streaming (StAX) decoder and with the DOM decoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchResponseDecoderBenchmark {
+    @Param({"streaming", "dom"})
+    public String decoder;
+
+    @Param({"20", "200"})
+    public int rows;
+
+    private SearchResponseDecoder searchResponseDecoder;
+
+    private byte[] response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchResponseDecoder = (decoder.equals("dom") ? SearchResponseDecoder.dom() : SearchResponseDecoder.streaming());
+        response = Fixtures.searchResponse(Fixtures.history("com.example", "library", rows), rows, 0)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        searchResponseDecoder.decode(new ByteArrayInputStream(response), new SearchResponseHandler() {
+            @Override
+            public void onResult(int numFound, int start) {
+                blackhole.consume(numFound);
+            }
+
+            @Override
+            public boolean onDocument(String groupId, String artifactId, String version, long timestamp) {
+                blackhole.consume(version);
+                blackhole.consume(timestamp);
+                return true;
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A local stand-in for the search.maven.org select endpoint. It answers single-artifact and OR'ed multi-artifact
+ * queries from fixture histories, newest first across all matched artifacts, and replays the rendered response for a
+ * repeated query so that the benchmark measures the client rather than the stub.
+ */
+final class SearchStubServer implements AutoCloseable {
+    private static final Pattern ARTIFACT_CLAUSE = Pattern.compile("g:([^ )]+) AND a:([^ )]+)");
+
+    private final Map<String, List<Fixtures.SearchRow>> histories;
+
+    private final Map<String, byte[]> recordedResponses = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private final HttpServer server;
+
+    SearchStubServer(Map<String, List<Fixtures.SearchRow>> histories) throws IOException {
+        this.histories = Map.copyOf(histories);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/solrsearch/select", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getSearchUrl() {
+        return "http://%s:%d/solrsearch/select".formatted(server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final String query = exchange.getRequestURI().getRawQuery();
+            final byte[] body = recordedResponses.computeIfAbsent(query, this::render);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private byte[] render(String rawQuery) {
+        final Map<String, String> parameters = new HashMap<>();
+        for (String parameter : rawQuery.split("&")) {
+            final int separator = parameter.indexOf('=');
+            parameters.put(parameter.substring(0, separator), URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+
+        final List<Fixtures.SearchRow> matches = new ArrayList<>();
+        final Matcher matcher = ARTIFACT_CLAUSE.matcher(parameters.getOrDefault("q", ""));
+        while (matcher.find()) {
+            matches.addAll(histories.getOrDefault(matcher.group(1) + ":" + matcher.group(2), List.of()));
+        }
+        matches.sort(Comparator.comparingLong(Fixtures.SearchRow::timestamp).reversed());
+
+        final int start = Integer.parseInt(parameters.getOrDefault("start", "0"));
+        final int rows = Integer.parseInt(parameters.getOrDefault("rows", "20"));
+        final List<Fixtures.SearchRow> page = matches.subList(Math.min(start, matches.size()), Math.min(start + rows, matches.size()));
+        return Fixtures.searchResponse(page, matches.size(), start).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
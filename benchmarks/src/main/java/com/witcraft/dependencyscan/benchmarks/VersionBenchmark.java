@@ -0,0 +1,91 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.DependencyInfo;
+import com.witcraft.dependencyscan.Version;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing version strings, sorting parsed versions, and building the {@link DependencyInfo} rows a lookup produces.
+ * {@code parseInterned} measures the steady state where every string has been seen before; {@code parseFresh} uses
+ * strings that have not, by defeating the intern table with a unique suffix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VersionBenchmark {
+    @Param({"1000"})
+    public int versionCount;
+
+    private List<String> versionStrings;
+
+    private List<Version> shuffledVersions;
+
+    private long freshSuffix;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        versionStrings = Fixtures.versions(versionCount);
+        final List<Version> versions = new ArrayList<>(versionStrings.size());
+        for (String versionString : versionStrings) {
+            versions.add(Version.parse(versionString));
+        }
+        Collections.shuffle(versions, new Random(Fixtures.SEED));
+        shuffledVersions = List.copyOf(versions);
+    }
+
+    @Benchmark
+    public void parseInterned(Blackhole blackhole) {
+        for (String versionString : versionStrings) {
+            blackhole.consume(Version.parse(versionString));
+        }
+    }
+
+    @Benchmark
+    public void parseFresh(Blackhole blackhole) {
+        final String suffix = "-" + (freshSuffix++);
+        for (String versionString : versionStrings) {
+            blackhole.consume(Version.parse(versionString + suffix));
+        }
+    }
+
+    @Benchmark
+    public List<Version> sort() {
+        final List<Version> versions = new ArrayList<>(shuffledVersions);
+        Collections.sort(versions);
+        return versions;
+    }
+
+    @Benchmark
+    public void buildDependencyInfo(Blackhole blackhole) {
+        for (String versionString : versionStrings) {
+            blackhole.consume(
+                DependencyInfo.builder()
+                    .withGroupId("com.example")
+                    .withArtifactId("library")
+                    .withVersion(versionString)
+                    .build()
+            );
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.witcraft.dependencyscan.benchmarks;
+
+import com.witcraft.dependencyscan.CompiledXPath;
+import com.witcraft.dependencyscan.XPathExecutor;
+import com.witcraft.dependencyscan.XmlUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathNodes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracting the coordinates of every dependency of a POM: through pre-compiled expressions, through
+ * {@link XPathExecutor}'s per-thread expression cache, and through plain {@link XPath} as the baseline that compiles
+ * every expression on every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XPathBenchmark {
+    private static final String DEPENDENCIES_PATH = "/project/dependencies/dependency";
+
+    @Param({"10", "2000"})
+    public int dependencyCount;
+
+    private Document document;
+
+    private XPathExecutor xPathExecutor;
+
+    private CompiledXPath groupIdXPath;
+
+    private CompiledXPath artifactIdXPath;
+
+    private CompiledXPath versionXPath;
+
+    private XPath xPath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        document = XmlUtil.loadXmlDocument(Fixtures.pom(dependencyCount));
+        xPathExecutor = XPathExecutor.newInstance();
+        groupIdXPath = xPathExecutor.compile("groupId");
+        artifactIdXPath = xPathExecutor.compile("artifactId");
+        versionXPath = xPathExecutor.compile("version");
+        xPath = XPathFactory.newInstance().newXPath();
+    }
+
+    @Benchmark
+    public void compiledExpressions(Blackhole blackhole) {
+        for (Node dependency : xPathExecutor.xPathNodes(document, DEPENDENCIES_PATH)) {
+            blackhole.consume(groupIdXPath.text(dependency));
+            blackhole.consume(artifactIdXPath.text(dependency));
+            blackhole.consume(versionXPath.text(dependency));
+        }
+    }
+
+    @Benchmark
+    public void cachedExpressions(Blackhole blackhole) {
+        for (Node dependency : xPathExecutor.xPathNodes(document, DEPENDENCIES_PATH)) {
+            blackhole.consume(xPathExecutor.xPathText(dependency, "groupId"));
+            blackhole.consume(xPathExecutor.xPathText(dependency, "artifactId"));
+            blackhole.consume(xPathExecutor.xPathText(dependency, "version"));
+        }
+    }
+
+    @Benchmark
+    public void uncompiledExpressions(Blackhole blackhole) throws XPathExpressionException {
+        for (Node dependency : xPath.evaluateExpression(DEPENDENCIES_PATH, document, XPathNodes.class)) {
+            blackhole.consume(xPath.evaluate("groupId", dependency));
+            blackhole.consume(xPath.evaluate("artifactId", dependency));
+            blackhole.consume(xPath.evaluate("version", dependency));
+        }
+    }
+}
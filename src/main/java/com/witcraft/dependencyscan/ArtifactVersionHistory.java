@@ -1,32 +1,92 @@
 package com.witcraft.dependencyscan;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
+import java.time.Instant;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 import static lombok.AccessLevel.NONE;
 
+/**
+ * The versions of an artifact that were found while looking up a dependency, indexed by parsed version and by
+ * publish date. Every query returns a read-only view over the indexes rather than a copy.
+ */
 @Data
 public final class ArtifactVersionHistory {
+    private static final Comparator<Version> NEWEST_FIRST = Comparator.reverseOrder();
+
     @Setter(NONE)
     @Getter(NONE)
     @ToString.Exclude
     private final AtomicReference<DependencyInfo> dependency;
 
-    private final Map<String, List<DependencyInfo>> versions;
+    @Setter(NONE)
+    @Getter(NONE)
+    private final NavigableMap<Version, DependencyInfo> versions;
+
+    @Setter(NONE)
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final NavigableMap<Version, DependencyInfo> releases;
+
+    @Setter(NONE)
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Map<String, NavigableMap<Version, DependencyInfo>> versionsByMajor;
+
+    @Setter(NONE)
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final Map<String, NavigableMap<Version, DependencyInfo>> versionsByMinor;
+
+    @Setter(NONE)
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final NavigableMap<PublishKey, DependencyInfo> versionsByPublishDate;
+
+    @Setter(NONE)
+    @Getter(NONE)
+    @ToString.Exclude
+    private final List<DependencyInfo> fetchedVersions;
+
+    @Setter(NONE)
+    private LookupStatus status;
+
+    @Setter(NONE)
+    private String statusReason;
 
     private ArtifactVersionHistory(DependencyInfo dependency) {
         this.dependency = new AtomicReference<>(Objects.requireNonNull(dependency));
-        this.versions = new LinkedHashMap<>();
+        this.versions = new TreeMap<>(NEWEST_FIRST);
+        this.releases = new TreeMap<>(NEWEST_FIRST);
+        this.versionsByMajor = new HashMap<>();
+        this.versionsByMinor = new HashMap<>();
+        this.versionsByPublishDate = new TreeMap<>(Comparator.reverseOrder());
+        this.fetchedVersions = new ArrayList<>();
+        this.status = LookupStatus.COMPLETE;
     }
 
     private ArtifactVersionHistory(String groupId, String artifactId, String version) {
@@ -39,8 +99,11 @@ public final class ArtifactVersionHistory {
         );
     }
 
+    /**
+     * @param dependency the declared dependency, kept as it is so that its scope and source location are reported
+     */
     public static ArtifactVersionHistory of(DependencyInfo dependency) {
-        return of(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+        return new ArtifactVersionHistory(dependency);
     }
 
     public static ArtifactVersionHistory of(String groupId, String artifactId, String version) {
@@ -48,6 +111,7 @@ public final class ArtifactVersionHistory {
     }
 
     public ArtifactVersionHistory addVersion(DependencyInfo version) {
+        fetchedVersions.add(version);
         final DependencyInfo dependencyInfo = dependency.get();
         final String currentVersion = dependencyInfo.getVersion();
         if (Objects.equals(version.getVersion(), currentVersion)) {
@@ -56,32 +120,212 @@ public final class ArtifactVersionHistory {
                 .build();
             dependency.set(newInfo);
         } else {
-            versions.computeIfAbsent(version.getMajorVersion(), majorVersion -> new ArrayList<>())
-                .add(version);
+            final Version parsedVersion = version.getParsedVersion();
+            if (versions.putIfAbsent(parsedVersion, version) == null) {
+                if (!parsedVersion.isPrerelease()) {
+                    releases.put(parsedVersion, version);
+                }
+                versionsByMajor.computeIfAbsent(version.getMajorVersion(), majorVersion -> new TreeMap<>(NEWEST_FIRST))
+                    .put(parsedVersion, version);
+                versionsByMinor.computeIfAbsent(getMinorKey(version), minorVersion -> new TreeMap<>(NEWEST_FIRST))
+                    .put(parsedVersion, version);
+                if (version.getPublishDate() != null) {
+                    versionsByPublishDate.put(new PublishKey(version.getPublishDate(), parsedVersion), version);
+                }
+            }
         }
         return this;
     }
 
+    /**
+     * Records that the lookup stopped before it reached the current version or the oldest version: {@link
+     * LookupStatus#FAILED} when nothing was fetched, otherwise {@link LookupStatus#PARTIAL}.
+     */
+    public ArtifactVersionHistory markIncomplete(String reason) {
+        this.status = (fetchedVersions.isEmpty() ? LookupStatus.FAILED : LookupStatus.PARTIAL);
+        this.statusReason = reason;
+        return this;
+    }
+
+    public boolean isComplete() {
+        return status == LookupStatus.COMPLETE;
+    }
+
     public DependencyInfo getDependency() {
         return dependency.get();
     }
 
-    public List<DependencyInfo> getUpgradeVersions() {
-        final List<DependencyInfo> versions = this.versions.get(dependency.get().getMajorVersion());
-        if (versions != null) {
-            return versions;
-        }
-        return Collections.emptyList();
+    public boolean isCurrentVersionFound() {
+        return fetchedVersions.stream().anyMatch(version -> Objects.equals(version.getVersion(), dependency.get().getVersion()));
+    }
+
+    public List<DependencyInfo> getFetchedVersions() {
+        return Collections.unmodifiableList(fetchedVersions);
     }
 
-    public List<DependencyInfo> getOtherVersions() {
+    /**
+     * @return every version other than the current one, newest first
+     */
+    public NavigableMap<Version, DependencyInfo> getVersions() {
+        return Collections.unmodifiableNavigableMap(versions);
+    }
+
+    /**
+     * @return the versions sharing the current version's major version, newest first
+     */
+    public Collection<DependencyInfo> getUpgradeVersions() {
+        final NavigableMap<Version, DependencyInfo> sameMajor = versionsByMajor.get(dependency.get().getMajorVersion());
+        return (sameMajor == null ? Collections.emptyList() : Collections.unmodifiableCollection(sameMajor.values()));
+    }
+
+    /**
+     * @return the versions with a different major version than the current one, newest first
+     */
+    public Collection<DependencyInfo> getOtherVersions() {
         final String majorVersion = dependency.get().getMajorVersion();
-        final List<DependencyInfo> result = new ArrayList<>();
-        for (Map.Entry<String, List<DependencyInfo>> entry : versions.entrySet()) {
-            if (!Objects.equals(entry.getKey(), majorVersion)) {
-                result.addAll(entry.getValue());
+        final int upgradeCount = getUpgradeVersions().size();
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<DependencyInfo> iterator() {
+                return new FilteringIterator(versions.values().iterator(), version -> !Objects.equals(version.getMajorVersion(), majorVersion));
             }
+
+            @Override
+            public int size() {
+                return versions.size() - upgradeCount;
+            }
+        };
+    }
+
+    public Optional<DependencyInfo> getLatestVersion() {
+        return Optional.ofNullable(versions.firstEntry()).map(Map.Entry::getValue);
+    }
+
+    public Optional<DependencyInfo> getLatestRelease() {
+        return Optional.ofNullable(releases.firstEntry()).map(Map.Entry::getValue);
+    }
+
+    public Optional<DependencyInfo> getLatestUpgrade() {
+        return Optional.ofNullable(versionsByMajor.get(dependency.get().getMajorVersion()))
+            .map(NavigableMap::firstEntry)
+            .map(Map.Entry::getValue);
+    }
+
+    public Optional<DependencyInfo> getLatestPatch() {
+        return Optional.ofNullable(versionsByMinor.get(getMinorKey(dependency.get())))
+            .map(NavigableMap::firstEntry)
+            .map(Map.Entry::getValue);
+    }
+
+    /**
+     * @return the versions published strictly before {@code time}, most recently published first; versions
+     * without a known publish date are not included
+     */
+    public Collection<DependencyInfo> getVersionsPublishedBefore(Instant time) {
+        return Collections.unmodifiableCollection(versionsByPublishDate.tailMap(PublishKey.lowestAt(time), false).values());
+    }
+
+    /**
+     * @return at most {@code count} versions, newest first
+     */
+    public Collection<DependencyInfo> getNewestVersions(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative");
+        }
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<DependencyInfo> iterator() {
+                final Iterator<DependencyInfo> iterator = versions.values().iterator();
+                return new Iterator<>() {
+                    private int remaining = count;
+
+                    @Override
+                    public boolean hasNext() {
+                        return remaining > 0 && iterator.hasNext();
+                    }
+
+                    @Override
+                    public DependencyInfo next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        remaining--;
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Math.min(count, versions.size());
+            }
+        };
+    }
+
+    private static String getMinorKey(DependencyInfo dependency) {
+        return "%s.%s".formatted(dependency.getMajorVersion(), dependency.getMinorVersion());
+    }
+
+    private record PublishKey(Instant publishDate, Version version) implements Comparable<PublishKey> {
+        private static final Comparator<PublishKey> ORDER = Comparator.comparing(PublishKey::publishDate)
+            .thenComparing(PublishKey::version, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        static PublishKey lowestAt(Instant publishDate) {
+            return new PublishKey(publishDate, null);
+        }
+
+        @Override
+        public int compareTo(PublishKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private static final class FilteringIterator implements Iterator<DependencyInfo> {
+        private final Iterator<DependencyInfo> iterator;
+
+        private final Predicate<DependencyInfo> filter;
+
+        private DependencyInfo next;
+
+        FilteringIterator(Iterator<DependencyInfo> iterator, Predicate<DependencyInfo> filter) {
+            this.iterator = iterator;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                final DependencyInfo candidate = iterator.next();
+                if (filter.test(candidate)) {
+                    next = candidate;
+                }
+            }
+            return next != null;
         }
-        return result;
+
+        @Override
+        public DependencyInfo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final DependencyInfo result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    public enum LookupStatus {
+        /**
+         * Every version newer than the current one was fetched.
+         */
+        COMPLETE,
+        /**
+         * Some versions were fetched before the lookup failed.
+         */
+        PARTIAL,
+        /**
+         * The lookup failed before any version was fetched.
+         */
+        FAILED
     }
 }
@@ -0,0 +1,507 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Log4j2
+public final class CachingMvnRepository implements MvnRepository {
+    public static final Path DEFAULT_CACHE_DIRECTORY = Path.of(System.getProperty("user.home"), ".dependency-scan", "cache");
+
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(1);
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final String FILE_EXTENSION = ".versions";
+
+    private static final String HEADER_FETCHED = "fetched=";
+
+    private static final String HEADER_COMPLETE = "complete=";
+
+    private static final int UNCOUNTED = -1;
+
+    private final MvnRepository delegate;
+
+    private final Path cacheDirectory;
+
+    private final Duration timeToLive;
+
+    private final int maxEntries;
+
+    private final Map<String, CacheEntry> entries;
+
+    // How many entry files the directory holds: counted once, then kept up to date by this instance, and counted again
+    // at every eviction to take in the files other processes sharing the directory have written.
+    private final AtomicInteger fileCount = new AtomicInteger(UNCOUNTED);
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder revalidationCount = new LongAdder();
+
+    private final LongAdder staleCount = new LongAdder();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter revalidationCounter;
+
+    private final Counter staleCounter;
+
+    private CachingMvnRepository(Builder builder) {
+        this.delegate = Objects.requireNonNull(builder.delegate);
+        this.cacheDirectory = Objects.requireNonNull(builder.cacheDirectory);
+        this.timeToLive = Objects.requireNonNull(builder.timeToLive);
+        this.maxEntries = builder.maxEntries;
+        // The files on disk are bounded by maxEntries; the entries read from them are bounded the same way, least
+        // recently used first, so a long-running process does not keep every artifact it has ever looked up.
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        this.hitCounter = builder.metrics.counter("cache.hits");
+        this.missCounter = builder.metrics.counter("cache.misses");
+        this.revalidationCounter = builder.metrics.counter("cache.revalidations");
+        this.staleCounter = builder.metrics.counter("cache.stale");
+        builder.metrics.gauge("cache.hitRatio", () -> {
+            final long lookups = hitCounter.getCount() + revalidationCounter.getCount() + staleCounter.getCount() + missCounter.getCount();
+            return (lookups == 0 ? 0 : (double) (hitCounter.getCount() + revalidationCounter.getCount()) / lookups);
+        });
+    }
+
+    public static Builder builder(MvnRepository delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+        return lookupCached(dependency, delegate::lookupArtifactVersions);
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+        return lookupCached(dependency, info -> delegate.lookupArtifactVersions(info, pageSize));
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        if (start > 0) {
+            return delegate.lookupArtifactVersions(dependency, pageSize, start);
+        }
+        return lookupArtifactVersions(dependency, pageSize);
+    }
+
+    /**
+     * Artifacts with nothing cached are looked up together through the delegate, so that a batching delegate can
+     * combine them; artifacts with a cache entry are served or revalidated one at a time.
+     */
+    @Override
+    public List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        final List<DependencyInfo> dependencyList = List.copyOf(dependencies);
+        final ArtifactVersionHistory[] results = new ArtifactVersionHistory[dependencyList.size()];
+        final List<Integer> cachedIndexes = new ArrayList<>();
+        final List<Integer> uncachedIndexes = new ArrayList<>();
+        for (int i = 0; i < dependencyList.size(); i++) {
+            final DependencyInfo dependency = dependencyList.get(i);
+            final boolean cached = (entries.containsKey(dependency.getGroupArtifact()) || readEntry(dependency) != null);
+            (cached ? cachedIndexes : uncachedIndexes).add(i);
+        }
+
+        if (!uncachedIndexes.isEmpty()) {
+            final Instant now = Instant.now();
+            final List<ArtifactVersionHistory> fetched = delegate.lookupAllArtifactVersions(select(dependencyList, uncachedIndexes), maxConcurrentLookups);
+            for (int i = 0; i < uncachedIndexes.size(); i++) {
+                final ArtifactVersionHistory versionHistory = fetched.get(i);
+                missCount.increment();
+                missCounter.increment();
+                storeFetched(versionHistory.getDependency().getGroupArtifact(), entries.get(versionHistory.getDependency().getGroupArtifact()), versionHistory, now);
+                results[uncachedIndexes.get(i)] = versionHistory;
+            }
+        }
+        if (!cachedIndexes.isEmpty()) {
+            final List<ArtifactVersionHistory> served = ConcurrentLookup.lookupAll(this, select(dependencyList, cachedIndexes), maxConcurrentLookups);
+            for (int i = 0; i < cachedIndexes.size(); i++) {
+                results[cachedIndexes.get(i)] = served.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    private static List<DependencyInfo> select(List<DependencyInfo> dependencies, List<Integer> indexes) {
+        return indexes.stream()
+            .map(dependencies::get)
+            .toList();
+    }
+
+    private ArtifactVersionHistory lookupCached(DependencyInfo dependency, Function<DependencyInfo, ArtifactVersionHistory> fetcher) {
+        final String key = dependency.getGroupArtifact();
+        final Instant now = Instant.now();
+        final CacheEntry cached = Optional.ofNullable(entries.get(key)).orElseGet(() -> readEntry(dependency));
+
+        if (cached != null && cached.covers(dependency.getVersion())) {
+            if (!cached.isExpiredAt(now, timeToLive)) {
+                hitCount.increment();
+                hitCounter.increment();
+                return cached.toVersionHistory(dependency);
+            }
+            final RevalidationResult revalidation = revalidate(dependency, cached, fetcher, now);
+            if (revalidation.entry() != null) {
+                revalidationCount.increment();
+                revalidationCounter.increment();
+                store(key, revalidation.entry());
+                return revalidation.entry().toVersionHistory(dependency);
+            }
+            if (revalidation.failure() != null) {
+                // Serve the stale entry rather than nothing, but flag it so that it is not mistaken for a fresh result.
+                staleCount.increment();
+                staleCounter.increment();
+                return cached.toVersionHistory(dependency)
+                    .markIncomplete("Stale cache entry; revalidation failed: %s".formatted(revalidation.failure()));
+            }
+        }
+
+        missCount.increment();
+        missCounter.increment();
+        final ArtifactVersionHistory versionHistory = fetcher.apply(dependency);
+        storeFetched(key, cached, versionHistory, now);
+        return versionHistory;
+    }
+
+    /**
+     * @return when the cached versions of {@code dependency}'s artifact were last fetched or revalidated, if any are
+     * cached
+     */
+    public Optional<Instant> getFetchedTime(DependencyInfo dependency) {
+        return getEntry(dependency).map(CacheEntry::fetched);
+    }
+
+    /**
+     * Answers from the cache alone, even if the entry has expired, without counting a hit or a miss.
+     *
+     * @return the cached versions, or nothing if the cache does not cover {@code dependency}'s version
+     */
+    public Optional<ArtifactVersionHistory> peek(DependencyInfo dependency) {
+        return getEntry(dependency)
+            .filter(cached -> cached.covers(dependency.getVersion()))
+            .map(cached -> cached.toVersionHistory(dependency));
+    }
+
+    /**
+     * Revalidates the entry for {@code dependency}'s artifact now, whether or not it has expired, or fetches it if
+     * nothing usable is cached.
+     *
+     * @return whether the entry is now fresh
+     */
+    public boolean refresh(DependencyInfo dependency) {
+        final String key = dependency.getGroupArtifact();
+        final Instant now = Instant.now();
+        final CacheEntry cached = getEntry(dependency).orElse(null);
+        if (cached != null && cached.covers(dependency.getVersion())) {
+            final RevalidationResult revalidation = revalidate(dependency, cached, delegate::lookupArtifactVersions, now);
+            if (revalidation.entry() != null) {
+                store(key, revalidation.entry());
+                return true;
+            }
+            if (revalidation.failure() != null) {
+                return false;
+            }
+        }
+        final ArtifactVersionHistory versionHistory = delegate.lookupArtifactVersions(dependency);
+        storeFetched(key, cached, versionHistory, now);
+        return versionHistory.isComplete();
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    private Optional<CacheEntry> getEntry(DependencyInfo dependency) {
+        return Optional.ofNullable(entries.get(dependency.getGroupArtifact())).or(() -> Optional.ofNullable(readEntry(dependency)));
+    }
+
+    private void storeFetched(String key, CacheEntry cached, ArtifactVersionHistory versionHistory, Instant now) {
+        final List<DependencyInfo> fetchedVersions = versionHistory.getFetchedVersions();
+        if (versionHistory.isComplete() && !fetchedVersions.isEmpty()) {
+            final CacheEntry fetched = new CacheEntry(now, !versionHistory.isCurrentVersionFound(), CacheEntry.toRows(fetchedVersions));
+            store(key, (cached == null ? fetched : cached.mergeWith(fetched)));
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getRevalidationCount() {
+        return revalidationCount.sum();
+    }
+
+    public long getStaleCount() {
+        return staleCount.sum();
+    }
+
+    private RevalidationResult revalidate(DependencyInfo dependency, CacheEntry cached, Function<DependencyInfo, ArtifactVersionHistory> fetcher, Instant now) {
+        final CacheRow newestRow = cached.rows().get(0);
+        final DependencyInfo anchor = DependencyInfo.builder(dependency)
+            .withVersion(newestRow.version())
+            .build();
+        final ArtifactVersionHistory newerHistory = fetcher.apply(anchor);
+        if (!newerHistory.isComplete()) {
+            log.atWarn().log("[{}] Failed to revalidate cached versions: {}", dependency.getGroupArtifact(), newerHistory.getStatusReason());
+            return new RevalidationResult(null, newerHistory.getStatusReason());
+        }
+        if (!newerHistory.isCurrentVersionFound()) {
+            log.atDebug().log("[{}] Newest cached version {} is no longer listed; refetching", dependency.getGroupArtifact(), newestRow.version());
+            return new RevalidationResult(null, null);
+        }
+        final CacheEntry revalidated = cached.mergeWith(new CacheEntry(now, false, CacheEntry.toRows(newerHistory.getFetchedVersions())))
+            .withFetched(now);
+        return new RevalidationResult(revalidated, null);
+    }
+
+    private void store(String key, CacheEntry entry) {
+        entries.put(key, entry);
+        try {
+            Files.createDirectories(cacheDirectory);
+            final Path file = getCacheFile(key);
+            final boolean added = !Files.exists(file);
+            final Path tempFile = Files.createTempFile(cacheDirectory, ".", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(HEADER_FETCHED + entry.fetched().toEpochMilli());
+                writer.newLine();
+                writer.write(HEADER_COMPLETE + entry.complete());
+                writer.newLine();
+                for (CacheRow row : entry.rows()) {
+                    writer.write(row.version());
+                    writer.write('\t');
+                    writer.write(row.publishDate() == null ? "" : Long.toString(row.publishDate().toEpochMilli()));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (added && countAddedFile() > maxEntries) {
+                evictExcessEntries();
+            }
+        } catch (IOException | UncheckedIOException ex) {
+            log.atError().withThrowable(ex).log("Failed to write cache entry for [{}]", key);
+        }
+    }
+
+    private CacheEntry readEntry(DependencyInfo dependency) {
+        final String key = dependency.getGroupArtifact();
+        final Path file = getCacheFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Instant fetched = null;
+            boolean complete = false;
+            final List<CacheRow> rows = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(HEADER_FETCHED)) {
+                    fetched = Instant.ofEpochMilli(Long.parseLong(line.substring(HEADER_FETCHED.length())));
+                } else if (line.startsWith(HEADER_COMPLETE)) {
+                    complete = Boolean.parseBoolean(line.substring(HEADER_COMPLETE.length()));
+                } else if (!line.isBlank()) {
+                    final int separator = line.indexOf('\t');
+                    final String version = (separator < 0 ? line : line.substring(0, separator));
+                    final String timestamp = (separator < 0 ? "" : line.substring(separator + 1));
+                    rows.add(new CacheRow(version, (timestamp.isEmpty() ? null : Instant.ofEpochMilli(Long.parseLong(timestamp)))));
+                }
+            }
+            if (fetched == null || rows.isEmpty()) {
+                return null;
+            }
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            final CacheEntry entry = new CacheEntry(fetched, complete, List.copyOf(rows));
+            entries.put(key, entry);
+            return entry;
+        } catch (IOException | RuntimeException ex) {
+            log.atWarn().withThrowable(ex).log("Ignoring unreadable cache entry {}", file);
+        }
+        return null;
+    }
+
+    private int countAddedFile() throws IOException {
+        if (fileCount.get() == UNCOUNTED) {
+            // The listing already includes the file just added.
+            fileCount.compareAndSet(UNCOUNTED, listEntryFiles().size());
+            return fileCount.get();
+        }
+        return fileCount.incrementAndGet();
+    }
+
+    // Evicts down to a tenth below maxEntries, so that the directory is not listed again for every entry added.
+    private synchronized void evictExcessEntries() throws IOException {
+        final List<EntryFile> files = new ArrayList<>();
+        for (Path file : listEntryFiles()) {
+            try {
+                files.add(new EntryFile(file, Files.getLastModifiedTime(file)));
+            } catch (NoSuchFileException ex) {
+                // Evicted by another process in the meantime.
+            }
+        }
+        final int excess = files.size() - (maxEntries - maxEntries / 10);
+        if (excess <= 0) {
+            fileCount.set(files.size());
+            return;
+        }
+        files.sort(Comparator.comparing(EntryFile::lastModified));
+        for (EntryFile evicted : files.subList(0, excess)) {
+            Files.deleteIfExists(evicted.file());
+        }
+        fileCount.set(files.size() - excess);
+        log.atDebug().log("Evicted {} cache entries", excess);
+    }
+
+    private List<Path> listEntryFiles() throws IOException {
+        try (Stream<Path> stream = Files.list(cacheDirectory)) {
+            return stream.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION)).toList();
+        }
+    }
+
+    private Path getCacheFile(String key) {
+        return cacheDirectory.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8) + FILE_EXTENSION);
+    }
+
+    private record EntryFile(Path file, FileTime lastModified) {
+    }
+
+    private record CacheRow(String version, Instant publishDate) {
+    }
+
+    private record RevalidationResult(CacheEntry entry, String failure) {
+    }
+
+    private record CacheEntry(Instant fetched, boolean complete, List<CacheRow> rows) {
+        static List<CacheRow> toRows(List<DependencyInfo> versions) {
+            return versions.stream()
+                .map(version -> new CacheRow(version.getVersion(), version.getPublishDate()))
+                .toList();
+        }
+
+        boolean covers(String version) {
+            return complete || rows.stream().anyMatch(row -> Objects.equals(row.version(), version));
+        }
+
+        boolean isExpiredAt(Instant time, Duration timeToLive) {
+            return fetched.plus(timeToLive).isBefore(time);
+        }
+
+        CacheEntry withFetched(Instant fetched) {
+            return new CacheEntry(fetched, complete, rows);
+        }
+
+        CacheEntry mergeWith(CacheEntry other) {
+            final Map<String, CacheRow> merged = new LinkedHashMap<>();
+            for (CacheRow row : other.rows) {
+                merged.put(row.version(), row);
+            }
+            for (CacheRow row : rows) {
+                merged.putIfAbsent(row.version(), row);
+            }
+            final List<CacheRow> mergedRows = merged.values().stream()
+                .sorted(Comparator.comparing(CacheRow::publishDate, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+            return new CacheEntry(other.fetched, complete || other.complete, mergedRows);
+        }
+
+        ArtifactVersionHistory toVersionHistory(DependencyInfo dependency) {
+            final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+            for (CacheRow row : rows) {
+                versionHistory.addVersion(
+                    dependency.toVersion(row.version(), row.publishDate())
+                );
+                if (Objects.equals(dependency.getVersion(), row.version())) {
+                    break;
+                }
+            }
+            return versionHistory;
+        }
+    }
+
+    public static final class Builder {
+        private final MvnRepository delegate;
+
+        private Path cacheDirectory = DEFAULT_CACHE_DIRECTORY;
+
+        private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder(MvnRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        public CachingMvnRepository build() {
+            return new CachingMvnRepository(this);
+        }
+
+        public Builder withCacheDirectory(Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        public Builder withTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public Builder withMaxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param metrics records hits, misses, revalidations and stale results, and the {@code cache.hitRatio} of
+         *                fresh or revalidated results to all lookups
+         */
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent lookups of the same artifact into a single lookup on the delegate.
+ * <p>
+ * The first caller performs the lookup; callers arriving while it is in flight wait for it and each receive their
+ * own {@link ArtifactVersionHistory} built from the shared version list, relative to their own current version. A
+ * caller whose current version is older than anything the shared lookup reached falls back to a lookup of its own.
+ */
+@Log4j2
+public final class CoalescingMvnRepository implements MvnRepository {
+    private static final Comparator<DependencyInfo> OLDEST_FIRST = Comparator.comparing(DependencyInfo::getParsedVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final MvnRepository delegate;
+
+    private final Map<FlightKey, CompletableFuture<ArtifactVersionHistory>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder lookupCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder fallbackCount = new LongAdder();
+
+    private CoalescingMvnRepository(MvnRepository delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+    }
+
+    public static CoalescingMvnRepository of(MvnRepository delegate) {
+        return new CoalescingMvnRepository(delegate);
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+        return lookupCoalesced(dependency, new FlightKey(dependency.getGroupArtifact(), 0), delegate::lookupArtifactVersions);
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+        return lookupCoalesced(dependency, new FlightKey(dependency.getGroupArtifact(), pageSize), info -> delegate.lookupArtifactVersions(info, pageSize));
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        if (start > 0) {
+            return delegate.lookupArtifactVersions(dependency, pageSize, start);
+        }
+        return lookupArtifactVersions(dependency, pageSize);
+    }
+
+    /**
+     * Looks up one dependency per artifact through the delegate, choosing the one with the oldest version since its
+     * lookup reaches furthest back, and answers the other versions of that artifact from its result. Artifacts that
+     * another caller, batched or not, is already looking up are answered from that lookup instead.
+     */
+    @Override
+    public List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        final List<DependencyInfo> dependencyList = List.copyOf(dependencies);
+        final Map<String, DependencyInfo> leaders = new LinkedHashMap<>();
+        for (DependencyInfo dependency : dependencyList) {
+            leaders.merge(dependency.getGroupArtifact(), dependency, (leader, candidate) -> (OLDEST_FIRST.compare(candidate, leader) < 0 ? candidate : leader));
+        }
+
+        // Registered before the delegate is asked, so that batches running at the same time wait for these lookups
+        // rather than repeating them.
+        final Map<String, CompletableFuture<ArtifactVersionHistory>> flights = new HashMap<>();
+        final Map<FlightKey, CompletableFuture<ArtifactVersionHistory>> ownFlights = new LinkedHashMap<>();
+        final List<DependencyInfo> leaderList = new ArrayList<>();
+        for (DependencyInfo leader : leaders.values()) {
+            final FlightKey key = new FlightKey(leader.getGroupArtifact(), 0);
+            final CompletableFuture<ArtifactVersionHistory> flight = new CompletableFuture<>();
+            final CompletableFuture<ArtifactVersionHistory> existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                ownFlights.put(key, flight);
+                leaderList.add(leader);
+            }
+            flights.put(leader.getGroupArtifact(), Objects.requireNonNullElse(existing, flight));
+        }
+
+        if (!leaderList.isEmpty()) {
+            lookupCount.add(leaderList.size());
+            try {
+                final List<ArtifactVersionHistory> leaderResults = delegate.lookupAllArtifactVersions(leaderList, maxConcurrentLookups);
+                for (int i = 0; i < leaderList.size(); i++) {
+                    flights.get(leaderList.get(i).getGroupArtifact()).complete(leaderResults.get(i));
+                }
+            } catch (RuntimeException | Error ex) {
+                ownFlights.values().forEach(flight -> flight.completeExceptionally(ex));
+                throw ex;
+            } finally {
+                ownFlights.forEach(inFlight::remove);
+            }
+        }
+
+        final ArtifactVersionHistory[] results = new ArtifactVersionHistory[dependencyList.size()];
+        final List<Integer> fallbackIndexes = new ArrayList<>();
+        for (int i = 0; i < dependencyList.size(); i++) {
+            final DependencyInfo dependency = dependencyList.get(i);
+            final ArtifactVersionHistory versionHistory;
+            try {
+                versionHistory = flights.get(dependency.getGroupArtifact()).join();
+            } catch (CompletionException ex) {
+                log.atDebug().log("[{}] Coalesced lookup failed; looking up separately", dependency.getGroupArtifact());
+                fallbackIndexes.add(i);
+                continue;
+            }
+            if (leaders.get(dependency.getGroupArtifact()) == dependency && ownFlights.containsKey(new FlightKey(dependency.getGroupArtifact(), 0))) {
+                results[i] = versionHistory;
+                continue;
+            }
+            final Optional<ArtifactVersionHistory> view = viewFor(dependency, versionHistory);
+            if (view.isPresent()) {
+                coalescedCount.increment();
+                results[i] = view.get();
+            } else {
+                fallbackIndexes.add(i);
+            }
+        }
+
+        if (!fallbackIndexes.isEmpty()) {
+            fallbackCount.add(fallbackIndexes.size());
+            lookupCount.add(fallbackIndexes.size());
+            final List<DependencyInfo> fallbacks = fallbackIndexes.stream()
+                .map(dependencyList::get)
+                .toList();
+            final List<ArtifactVersionHistory> fallbackResults = ConcurrentLookup.lookupAll(delegate, fallbacks, maxConcurrentLookups);
+            for (int i = 0; i < fallbackIndexes.size(); i++) {
+                results[fallbackIndexes.get(i)] = fallbackResults.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    /**
+     * @return the number of lookups performed on the delegate
+     */
+    public long getLookupCount() {
+        return lookupCount.sum();
+    }
+
+    /**
+     * @return the number of lookups answered from another caller's in-flight lookup, or from the lookup of another
+     * version of the same artifact in a batch
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return the number of callers that waited for an in-flight lookup that did not reach their version
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    private ArtifactVersionHistory lookupCoalesced(DependencyInfo dependency, FlightKey key, Function<DependencyInfo, ArtifactVersionHistory> fetcher) {
+        final CompletableFuture<ArtifactVersionHistory> flight = new CompletableFuture<>();
+        final CompletableFuture<ArtifactVersionHistory> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            lookupCount.increment();
+            try {
+                final ArtifactVersionHistory versionHistory = fetcher.apply(dependency);
+                flight.complete(versionHistory);
+                return versionHistory;
+            } catch (RuntimeException ex) {
+                flight.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        final ArtifactVersionHistory shared;
+        try {
+            shared = existing.join();
+        } catch (CompletionException ex) {
+            log.atDebug().log("[{}] Coalesced lookup failed; looking up separately", dependency.getGroupArtifact());
+            fallbackCount.increment();
+            lookupCount.increment();
+            return fetcher.apply(dependency);
+        }
+        final Optional<ArtifactVersionHistory> view = viewFor(dependency, shared);
+        if (view.isPresent()) {
+            coalescedCount.increment();
+            return view.get();
+        }
+        log.atDebug().log("[{}] Coalesced lookup stopped at {}, before {}; looking up separately", dependency.getGroupArtifact(), shared.getDependency().getVersion(), dependency.getVersion());
+        fallbackCount.increment();
+        lookupCount.increment();
+        return fetcher.apply(dependency);
+    }
+
+    // Replays the shared, newest-first version list for this caller up to its own version. The list is only usable
+    // if it reaches that version, or if it is the artifact's complete history and simply does not contain it.
+    private static Optional<ArtifactVersionHistory> viewFor(DependencyInfo dependency, ArtifactVersionHistory shared) {
+        final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+        boolean currentVersionFound = false;
+        for (DependencyInfo version : shared.getFetchedVersions()) {
+            versionHistory.addVersion(
+                dependency.toVersion(version.getVersion(), version.getPublishDate())
+            );
+            if (Objects.equals(dependency.getVersion(), version.getVersion())) {
+                currentVersionFound = true;
+                break;
+            }
+        }
+        if (currentVersionFound || (shared.isComplete() && !shared.isCurrentVersionFound())) {
+            return Optional.of(versionHistory);
+        }
+        return Optional.empty();
+    }
+
+    private record FlightKey(String groupArtifact, int pageSize) {
+    }
+}
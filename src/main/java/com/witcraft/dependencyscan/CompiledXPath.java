@@ -0,0 +1,26 @@
+package com.witcraft.dependencyscan;
+
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathNodes;
+import java.util.Optional;
+
+public interface CompiledXPath {
+    String getExpression();
+
+    Node node(Node context);
+
+    XPathNodes nodes(Node context);
+
+    Boolean booleanValue(Node context);
+
+    Double doubleValue(Node context);
+
+    Integer integerValue(Node context);
+
+    Long longValue(Node context);
+
+    String text(Node context);
+
+    <T> Optional<T> evaluate(Node context, Class<T> type);
+}
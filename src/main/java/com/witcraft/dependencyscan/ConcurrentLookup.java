@@ -0,0 +1,78 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Log4j2
+final class ConcurrentLookup {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private ConcurrentLookup() {
+    }
+
+    static List<ArtifactVersionHistory> lookupAll(MvnRepository repository, Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        if (maxConcurrentLookups < 1) {
+            throw new IllegalArgumentException("maxConcurrentLookups must be at least 1");
+        }
+        if (dependencies.isEmpty()) {
+            return List.of();
+        }
+
+        final int threadCount = Math.min(maxConcurrentLookups, dependencies.size());
+        if (threadCount == 1) {
+            return lookupSequentially(repository, dependencies);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, newThreadFactory());
+        try {
+            final List<CompletableFuture<ArtifactVersionHistory>> futures = new ArrayList<>(dependencies.size());
+            for (DependencyInfo dependency : dependencies) {
+                futures.add(CompletableFuture.supplyAsync(() -> repository.lookupArtifactVersions(dependency), executor)
+                    .exceptionally(ex -> {
+                        log.atError().withThrowable(ex).log("Failed to look up [{}]", dependency.getGroupArtifact());
+                        return ArtifactVersionHistory.of(dependency).markIncomplete(ex.toString());
+                    }));
+            }
+
+            final List<ArtifactVersionHistory> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<ArtifactVersionHistory> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Nothing to overlap, so the lookups run on the calling thread rather than on a pool created for them.
+    private static List<ArtifactVersionHistory> lookupSequentially(MvnRepository repository, Collection<DependencyInfo> dependencies) {
+        final List<ArtifactVersionHistory> results = new ArrayList<>(dependencies.size());
+        for (DependencyInfo dependency : dependencies) {
+            try {
+                results.add(repository.lookupArtifactVersions(dependency));
+            } catch (RuntimeException ex) {
+                log.atError().withThrowable(ex).log("Failed to look up [{}]", dependency.getGroupArtifact());
+                results.add(ArtifactVersionHistory.of(dependency).markIncomplete(ex.toString()));
+            }
+        }
+        return results;
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        final int poolId = POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "lookup-%d-%d".formatted(poolId, threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
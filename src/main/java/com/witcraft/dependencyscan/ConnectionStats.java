@@ -0,0 +1,70 @@
+package com.witcraft.dependencyscan;
+
+import javax.net.ssl.SSLSession;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class ConnectionStats {
+    private final LongAdder requestCount = new LongAdder();
+
+    private final Map<HttpClient.Version, LongAdder> responseCountByVersion = new ConcurrentHashMap<>();
+
+    // HttpClient does not expose its connection pool, so connections are told apart by their TLS session.
+    private final Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder securedResponseCount = new LongAdder();
+
+    ConnectionStats() {
+    }
+
+    void recordRequest() {
+        requestCount.increment();
+    }
+
+    void recordResponse(HttpResponse<?> response) {
+        responseCountByVersion.computeIfAbsent(response.version(), version -> new LongAdder()).increment();
+        response.sslSession().ifPresent(this::recordSession);
+    }
+
+    private void recordSession(SSLSession session) {
+        securedResponseCount.increment();
+        sessionIds.add("%s@%d".formatted(HexFormat.of().formatHex(session.getId()), session.getCreationTime()));
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getResponseCount() {
+        return responseCountByVersion.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getResponseCount(HttpClient.Version version) {
+        final LongAdder count = responseCountByVersion.get(version);
+        return (count == null ? 0 : count.sum());
+    }
+
+    public long getConnectionCount() {
+        return sessionIds.size();
+    }
+
+    public long getReusedConnectionCount() {
+        return Math.max(0, securedResponseCount.sum() - sessionIds.size());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStats(requests=%d, responses=%d, http2Responses=%d, connections=%d, reusedConnections=%d)".formatted(
+            getRequestCount(),
+            getResponseCount(),
+            getResponseCount(HttpClient.Version.HTTP_2),
+            getConnectionCount(),
+            getReusedConnectionCount()
+        );
+    }
+}
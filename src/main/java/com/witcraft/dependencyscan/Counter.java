@@ -0,0 +1,36 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, such as requests sent or bytes downloaded.
+ */
+public final class Counter implements Metric {
+    @Getter
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name) {
+        this.name = name;
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "%s=%d".formatted(name, getCount());
+    }
+}
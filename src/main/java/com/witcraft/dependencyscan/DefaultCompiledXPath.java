@@ -0,0 +1,72 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathNodes;
+import java.util.Optional;
+
+@Log4j2
+final class DefaultCompiledXPath implements CompiledXPath {
+
+    @Getter
+    private final String expression;
+
+    private final ThreadLocal<XPathExpression> compiledExpression;
+
+    DefaultCompiledXPath(DefaultXPathExecutor executor, String expression) {
+        this.expression = expression;
+        this.compiledExpression = ThreadLocal.withInitial(() -> executor.getCompiledExpression(expression));
+    }
+
+    @Override
+    public Node node(Node context) {
+        return evaluate(context, Node.class).orElse(null);
+    }
+
+    @Override
+    public XPathNodes nodes(Node context) {
+        return evaluate(context, XPathNodes.class).orElse(null);
+    }
+
+    @Override
+    public Boolean booleanValue(Node context) {
+        return evaluate(context, Boolean.class).orElse(null);
+    }
+
+    @Override
+    public Double doubleValue(Node context) {
+        return evaluate(context, Double.class).orElse(null);
+    }
+
+    @Override
+    public Integer integerValue(Node context) {
+        return evaluate(context, Integer.class).orElse(null);
+    }
+
+    @Override
+    public Long longValue(Node context) {
+        return evaluate(context, Long.class).orElse(null);
+    }
+
+    @Override
+    public String text(Node context) {
+        return evaluate(context, String.class).map(String::trim).orElse(null);
+    }
+
+    @Override
+    public <T> Optional<T> evaluate(Node context, Class<T> type) {
+        final long startedAt = System.nanoTime();
+        try {
+            return Optional.ofNullable(compiledExpression.get().evaluateExpression(context, type));
+        } catch (XPathExpressionException ex) {
+            log.atError().withThrowable(ex).log();
+        } finally {
+            DefaultXPathExecutor.EVALUATE_TIMER.recordSince(startedAt);
+        }
+        return Optional.empty();
+    }
+}
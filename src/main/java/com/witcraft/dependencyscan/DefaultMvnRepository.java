@@ -1,21 +1,29 @@
 package com.witcraft.dependencyscan;
 
+import lombok.Getter;
 import lombok.extern.log4j.Log4j2;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 
-import javax.xml.xpath.XPathNodes;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.witcraft.dependencyscan.MvnRepository.getArtifactVersionsUrl;
 
@@ -23,19 +31,90 @@ import static com.witcraft.dependencyscan.MvnRepository.getArtifactVersionsUrl;
 public final class DefaultMvnRepository implements MvnRepository {
     public static final ZoneId SYSTEM_DEFAULT_ZONE_ID = ZoneId.systemDefault();
 
-    private final XPathExecutor xPathExecutor;
+    public static final String DEFAULT_SEARCH_URL = "https://search.maven.org/solrsearch/select";
 
-    private DefaultMvnRepository() {
-        this.xPathExecutor = XPathExecutor.newInstance();
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int DEFAULT_MAX_PARALLEL_PAGES = 4;
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 10;
+
+    public static final int DEFAULT_MAX_BATCH_ROWS = 200;
+
+    private static final int MAX_URL_LENGTH = 2000;
+
+    private final String searchUrl;
+
+    private final HttpClient httpClient;
+
+    private final Duration requestTimeout;
+
+    private final int pageSize;
+
+    private final int maxParallelPages;
+
+    private final int maxBatchSize;
+
+    private final int maxBatchRows;
+
+    private final SearchResponseDecoder searchResponseDecoder;
+
+    @Getter
+    private final RequestScheduler requestScheduler;
+
+    @Getter
+    private final ConnectionStats connectionStats;
+
+    private final Timer lookupTimer;
+
+    private final Histogram pageCountHistogram;
+
+    private final Timer decodeTimer;
+
+    private final Counter bytesCounter;
+
+    private final Counter failureCounter;
+
+    private final Counter batchCounter;
+
+    private final Counter batchFallbackCounter;
+
+    private DefaultMvnRepository(Builder builder) {
+        this.searchUrl = builder.searchUrl;
+        this.httpClient = Optional.ofNullable(builder.httpClient).orElseGet(builder::buildHttpClient);
+        this.requestTimeout = builder.requestTimeout;
+        this.pageSize = builder.pageSize;
+        this.maxParallelPages = builder.maxParallelPages;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchRows = builder.maxBatchRows;
+        this.searchResponseDecoder = builder.searchResponseDecoder;
+        this.requestScheduler = Optional.ofNullable(builder.requestScheduler)
+            .orElseGet(() -> RequestScheduler.builder().withMetrics(builder.metrics).build());
+        this.connectionStats = new ConnectionStats();
+        this.lookupTimer = builder.metrics.timer("search.lookup");
+        this.pageCountHistogram = builder.metrics.histogram("search.pagesPerArtifact");
+        this.decodeTimer = builder.metrics.timer("search.decode");
+        this.bytesCounter = builder.metrics.counter("http.bytes");
+        this.failureCounter = builder.metrics.counter("search.failures");
+        this.batchCounter = builder.metrics.counter("search.batches");
+        this.batchFallbackCounter = builder.metrics.counter("search.batchFallbacks");
     }
 
     public static DefaultMvnRepository newInstance() {
-        return new DefaultMvnRepository();
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
     }
 
     @Override
     public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
-        return lookupArtifactVersions(dependency, 1);
+        return lookupArtifactVersions(dependency, pageSize);
     }
 
     @Override
@@ -45,74 +124,489 @@ public final class DefaultMvnRepository implements MvnRepository {
 
     @Override
     public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
-        final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+        return searchArtifactVersions(dependency, pageSize, start);
+    }
 
-        final AtomicInteger pageStart = new AtomicInteger(start);
-        final AtomicInteger resultCount = new AtomicInteger(-1);
-        final AtomicInteger searchCount = new AtomicInteger();
-
-        searchForCurrent:
-        do {
-            final Optional<Document> doc = Optional.ofNullable(getArtifactVersionsUrl(dependency, pageSize, pageStart.get()))
-                .map(DefaultMvnRepository::loadDocument);
-            searchCount.incrementAndGet();
-
-            if (doc.isPresent()) {
-                final Document document = doc.get();
-                final Node resultNode = xPathExecutor.xPathNode(document, "/response/result[@name = 'response']");
-                final Integer numFound = xPathExecutor.xPathInteger(resultNode, "@numFound");
-                // final Integer startOffset = xPathExecutor.xPathInteger(resultNode, "@start");
-                final XPathNodes items = xPathExecutor.xPathNodes(resultNode, "doc");
-
-                resultCount.compareAndSet(-1, numFound);
-
-                for (Node item : items) {
-                    // final String groupId = xPathExecutor.xPathText(item, "str[name = 'g']");
-                    // final String artifactId = xPathExecutor.xPathText(item, "str[name = 'a']");
-                    final String version = xPathExecutor.xPathText(item, "str[@name = 'v']");
-                    final Instant publishDate = Instant.ofEpochMilli(xPathExecutor.xPathLong(item, "long[@name = 'timestamp']"));
-
-                    final DependencyInfo.Builder dependencyBuilder = DependencyInfo.builder(dependency)
-                        .withVersion(version)
-                        .withPublishDate(publishDate);
-                    Optional.of(item)
-                        .filter(Element.class::isInstance)
-                        .map(Element.class::cast)
-                        .ifPresent(dependencyBuilder::withElement);
-
-                    versionHistory.addVersion(dependencyBuilder.build());
-
-                    if (Objects.equals(dependency.getVersion(), version)) {
-                        break searchForCurrent;
+    /**
+     * Looks up the artifacts in batches, each batch being one search query OR'ing together up to
+     * {@code maxBatchSize} artifacts. The rows of a batch are shared between its artifacts, so an artifact whose
+     * current version is not among them is looked up again on its own.
+     */
+    @Override
+    public List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        if (maxBatchSize < 2 || dependencies.size() < 2) {
+            return MvnRepository.super.lookupAllArtifactVersions(dependencies, maxConcurrentLookups);
+        }
+        if (maxConcurrentLookups < 1) {
+            throw new IllegalArgumentException("maxConcurrentLookups must be at least 1");
+        }
+
+        final List<DependencyInfo> dependencyList = List.copyOf(dependencies);
+        final ArtifactVersionHistory[] results = new ArtifactVersionHistory[dependencyList.size()];
+        final List<LookupBatch> batches = partitionBatches(dependencyList);
+        final List<Integer> fallbackIndexes = new ArrayList<>();
+
+        for (int windowStart = 0; windowStart < batches.size(); windowStart += maxConcurrentLookups) {
+            final List<LookupBatch> window = batches.subList(windowStart, Math.min(windowStart + maxConcurrentLookups, batches.size()));
+            final long windowStartedAt = System.nanoTime();
+            final List<CompletableFuture<InputStream>> pages = window.stream()
+                .map(batch -> fetchPageAsync(batch.getUrl()))
+                .toList();
+            for (int i = 0; i < window.size(); i++) {
+                final LookupBatch batch = window.get(i);
+                final boolean decoded = decodePage(pages.get(i), batch, batch.toString()).isEmpty();
+                for (BatchMember member : batch.getMembers()) {
+                    if (decoded && batch.isResolved(member)) {
+                        // A resolved member was served by the one shared page; members that fall back are recorded by
+                        // their own lookup instead.
+                        lookupTimer.recordSince(windowStartedAt);
+                        pageCountHistogram.record(1);
+                        results[member.index()] = member.versionHistory();
+                    } else {
+                        fallbackIndexes.add(member.index());
                     }
                 }
+            }
+        }
+
+        log.atDebug().log("Looked up {} artifacts in {} batches; {} need their own lookup", dependencyList.size(), batches.size(), fallbackIndexes.size());
+        batchCounter.add(batches.size());
+        batchFallbackCounter.add(fallbackIndexes.size());
+        if (!fallbackIndexes.isEmpty()) {
+            final List<DependencyInfo> fallbacks = fallbackIndexes.stream()
+                .map(dependencyList::get)
+                .toList();
+            final List<ArtifactVersionHistory> fallbackResults = MvnRepository.super.lookupAllArtifactVersions(fallbacks, maxConcurrentLookups);
+            for (int i = 0; i < fallbackIndexes.size(); i++) {
+                results[fallbackIndexes.get(i)] = fallbackResults.get(i);
+            }
+        }
+        return List.of(results);
+    }
 
-                pageStart.addAndGet(pageSize);
+    // Groups the dependencies by artifact, so that several versions of one artifact share a clause, and fills each
+    // batch until it reaches maxBatchSize artifacts or its URL would grow past MAX_URL_LENGTH.
+    private List<LookupBatch> partitionBatches(List<DependencyInfo> dependencies) {
+        final Map<String, List<Integer>> indexesByArtifact = new LinkedHashMap<>();
+        for (int i = 0; i < dependencies.size(); i++) {
+            indexesByArtifact.computeIfAbsent(dependencies.get(i).getGroupArtifact(), groupArtifact -> new ArrayList<>()).add(i);
+        }
 
-                if (pageSize == 1) {
-                    pageSize += 4;
+        final List<LookupBatch> batches = new ArrayList<>();
+        LookupBatch batch = new LookupBatch();
+        for (List<Integer> indexes : indexesByArtifact.values()) {
+            final DependencyInfo artifact = dependencies.get(indexes.get(0));
+            if (!batch.isEmpty() && (batch.getArtifactCount() >= maxBatchSize || batch.getUrlWith(artifact).length() > MAX_URL_LENGTH)) {
+                batches.add(batch);
+                batch = new LookupBatch();
+            }
+            for (int index : indexes) {
+                batch.add(index, dependencies.get(index));
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private ArtifactVersionHistory searchArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        final long startedAt = System.nanoTime();
+        final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+        final VersionCollector collector = new VersionCollector(dependency, versionHistory);
+        try {
+            return searchPages(dependency, versionHistory, collector, pageSize, start);
+        } finally {
+            lookupTimer.recordSince(startedAt);
+            pageCountHistogram.record(collector.getPageCount());
+        }
+    }
+
+    private ArtifactVersionHistory searchPages(DependencyInfo dependency, ArtifactVersionHistory versionHistory, VersionCollector collector, int pageSize, int start) {
+        final Optional<String> failure = decodePage(fetchPageAsync(getArtifactVersionsUrl(searchUrl, dependency, pageSize, start)), collector, dependency.getGroupArtifact());
+        if (failure.isPresent()) {
+            versionHistory.markIncomplete(failure.get());
+            return versionHistory;
+        }
+        if (collector.isCurrentVersionFound()) {
+            return versionHistory;
+        }
+
+        final int numFound = collector.getNumFound();
+        int pageStart = start + pageSize;
+        while (pageStart < numFound) {
+            final List<CompletableFuture<InputStream>> pages = new ArrayList<>(maxParallelPages);
+            for (int i = 0; i < maxParallelPages && pageStart < numFound; i++, pageStart += pageSize) {
+                pages.add(fetchPageAsync(getArtifactVersionsUrl(searchUrl, dependency, pageSize, pageStart)));
+            }
+            for (CompletableFuture<InputStream> page : pages) {
+                final Optional<String> pageFailure = decodePage(page, collector, dependency.getGroupArtifact());
+                if (pageFailure.isPresent() || collector.isCurrentVersionFound()) {
+                    pageFailure.ifPresent(versionHistory::markIncomplete);
+                    pages.forEach(DefaultMvnRepository::discardPage);
+                    return versionHistory;
                 }
-            } else {
-                log.atError().log("Failed to fetch artifact information");
-                break;
             }
-        } while (pageStart.get() <= resultCount.get());
+        }
 
         return versionHistory;
     }
 
-    private static Document loadDocument(String url) {
-        final HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(url))
-            .GET()
-            .build();
-        final HttpClient httpClient = HttpClient.newHttpClient();
+    /**
+     * @return the reason the page could not be fetched or read, or empty if it was decoded
+     */
+    private Optional<String> decodePage(CompletableFuture<InputStream> page, SearchResponseHandler handler, String description) {
+        final InputStream body;
+        try {
+            body = page.join();
+        } catch (CompletionException | CancellationException ex) {
+            final Throwable cause = Optional.ofNullable(ex.getCause()).orElse(ex);
+            log.atError().log("[{}] Failed to fetch artifact information: {}", description, cause.getMessage());
+            failureCounter.increment();
+            return Optional.of(cause.toString());
+        }
+        final long startedAt = System.nanoTime();
+        try (InputStream countedBody = new CountingInputStream(body, bytesCounter)) {
+            searchResponseDecoder.decode(countedBody, handler);
+            return Optional.empty();
+        } catch (IOException ex) {
+            log.atError().withThrowable(ex).log("[{}] Failed to read artifact information", description);
+            failureCounter.increment();
+            return Optional.of(ex.toString());
+        } finally {
+            decodeTimer.recordSince(startedAt);
+        }
+    }
+
+    // Cancelling the future would neither stop the exchange nor run anything chained to it afterwards, so the body is
+    // closed whenever it arrives instead, which also releases its connection. Closing an already decoded page is a no-op.
+    private static void discardPage(CompletableFuture<InputStream> page) {
+        page.whenComplete((body, ex) -> {
+            if (body != null) {
+                closeQuietly(body);
+            }
+        });
+    }
+
+    private CompletableFuture<InputStream> fetchPageAsync(String url) {
+        final HttpRequest httpRequest = newRequest(url);
+        connectionStats.recordRequest();
+        return requestScheduler.send(httpClient, httpRequest, HttpResponse.BodyHandlers.ofInputStream())
+            .thenApply(httpResponse -> {
+                connectionStats.recordResponse(httpResponse);
+                if (httpResponse.statusCode() != 200) {
+                    Optional.ofNullable(httpResponse.body()).ifPresent(DefaultMvnRepository::closeQuietly);
+                    throw new CompletionException(new IOException("HTTP %d from %s".formatted(httpResponse.statusCode(), url)));
+                }
+                return httpResponse.body();
+            });
+    }
+
+    private static void closeQuietly(InputStream body) {
         try {
-            final HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-            final String responseBody = httpResponse.body();
-            return XmlUtil.loadXmlDocument(responseBody);
-        } catch (IOException | InterruptedException ex) {
-            log.atError().withThrowable(ex).log();
+            body.close();
+        } catch (IOException ex) {
+            log.atDebug().withThrowable(ex).log();
+        }
+    }
+
+    private HttpRequest newRequest(String url) {
+        final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(url))
+            .GET();
+        if (requestTimeout != null) {
+            requestBuilder.timeout(requestTimeout);
+        }
+        return requestBuilder.build();
+    }
+
+    private static final class VersionCollector implements SearchResponseHandler {
+        private final DependencyInfo dependency;
+
+        private final ArtifactVersionHistory versionHistory;
+
+        @Getter
+        private int numFound;
+
+        @Getter
+        private int pageCount;
+
+        @Getter
+        private boolean currentVersionFound;
+
+        private VersionCollector(DependencyInfo dependency, ArtifactVersionHistory versionHistory) {
+            this.dependency = dependency;
+            this.versionHistory = versionHistory;
+        }
+
+        @Override
+        public void onResult(int numFound, int start) {
+            this.numFound = numFound;
+            pageCount++;
+        }
+
+        @Override
+        public boolean onDocument(String groupId, String artifactId, String version, long timestamp) {
+            versionHistory.addVersion(
+                dependency.toVersion(version, Instant.ofEpochMilli(timestamp))
+            );
+            currentVersionFound = Objects.equals(dependency.getVersion(), version);
+            return !currentVersionFound;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Counter counter;
+
+        private CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            final int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                counter.add(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            counter.add(skipped);
+            return skipped;
+        }
+    }
+
+    private record BatchMember(int index, VersionCollector collector, ArtifactVersionHistory versionHistory) {
+    }
+
+    // One combined query. Rows are routed to the collectors of their artifact; decoding stops early once every
+    // member has reached its current version.
+    private final class LookupBatch implements SearchResponseHandler {
+        @Getter
+        private final List<BatchMember> members = new ArrayList<>();
+
+        private final Map<String, List<VersionCollector>> collectorsByArtifact = new LinkedHashMap<>();
+
+        private final List<DependencyInfo> artifacts = new ArrayList<>();
+
+        private int numFound;
+
+        private int unresolvedCount;
+
+        private void add(int index, DependencyInfo dependency) {
+            final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+            final VersionCollector collector = new VersionCollector(dependency, versionHistory);
+            collectorsByArtifact.computeIfAbsent(dependency.getGroupArtifact(), groupArtifact -> {
+                artifacts.add(dependency);
+                return new ArrayList<>();
+            }).add(collector);
+            members.add(new BatchMember(index, collector, versionHistory));
+            unresolvedCount++;
+        }
+
+        private boolean isEmpty() {
+            return members.isEmpty();
+        }
+
+        private int getArtifactCount() {
+            return artifacts.size();
+        }
+
+        private int getRows() {
+            return (int) Math.min(maxBatchRows, (long) getArtifactCount() * pageSize);
+        }
+
+        private String getUrl() {
+            return getArtifactVersionsUrl(searchUrl, artifacts, getRows());
+        }
+
+        private String getUrlWith(DependencyInfo artifact) {
+            final List<DependencyInfo> candidates = new ArrayList<>(artifacts);
+            candidates.add(artifact);
+            return getArtifactVersionsUrl(searchUrl, candidates, (int) Math.min(maxBatchRows, (long) candidates.size() * pageSize));
+        }
+
+        // A member is resolved once its current version was reached, or when the page held every matching row, in
+        // which case its artifact's whole history is known.
+        private boolean isResolved(BatchMember member) {
+            return member.collector().isCurrentVersionFound() || numFound <= getRows();
+        }
+
+        @Override
+        public void onResult(int numFound, int start) {
+            this.numFound = numFound;
+        }
+
+        @Override
+        public boolean onDocument(String groupId, String artifactId, String version, long timestamp) {
+            final List<VersionCollector> collectors = collectorsByArtifact.get(groupId + ":" + artifactId);
+            if (collectors != null) {
+                for (VersionCollector collector : collectors) {
+                    if (!collector.isCurrentVersionFound()) {
+                        collector.onDocument(groupId, artifactId, version, timestamp);
+                        if (collector.isCurrentVersionFound()) {
+                            unresolvedCount--;
+                        }
+                    }
+                }
+            }
+            return unresolvedCount > 0;
+        }
+
+        @Override
+        public String toString() {
+            return "batch of %d artifacts".formatted(getArtifactCount());
+        }
+    }
+
+    public static final class Builder {
+        private String searchUrl = DEFAULT_SEARCH_URL;
+
+        private HttpClient httpClient;
+
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+        private Executor executor;
+
+        private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+        private int pageSize = DEFAULT_PAGE_SIZE;
+
+        private int maxParallelPages = DEFAULT_MAX_PARALLEL_PAGES;
+
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+        private int maxBatchRows = DEFAULT_MAX_BATCH_ROWS;
+
+        private SearchResponseDecoder searchResponseDecoder = SearchResponseDecoder.streaming();
+
+        private RequestScheduler requestScheduler;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder() {
+        }
+
+        public DefaultMvnRepository build() {
+            return new DefaultMvnRepository(this);
+        }
+
+        /**
+         * @param searchUrl the Solr select endpoint to query, such as a mirror of the search.maven.org API
+         */
+        public Builder withSearchUrl(String searchUrl) {
+            this.searchUrl = Objects.requireNonNull(searchUrl);
+            return this;
+        }
+
+        public Builder withHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        public Builder withConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder withRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder withExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder withHttpVersion(HttpClient.Version httpVersion) {
+            this.httpVersion = Objects.requireNonNull(httpVersion);
+            return this;
+        }
+
+        public Builder withPageSize(int pageSize) {
+            if (pageSize < 1) {
+                throw new IllegalArgumentException("pageSize must be at least 1");
+            }
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder withMaxParallelPages(int maxParallelPages) {
+            if (maxParallelPages < 1) {
+                throw new IllegalArgumentException("maxParallelPages must be at least 1");
+            }
+            this.maxParallelPages = maxParallelPages;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize the most artifacts combined into one search query by
+         *                     {@link #lookupAllArtifactVersions(Collection, int)}; {@code 1} disables batching
+         */
+        public Builder withMaxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be at least 1");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param maxBatchRows the most rows requested by one batched search query
+         */
+        public Builder withMaxBatchRows(int maxBatchRows) {
+            if (maxBatchRows < 1) {
+                throw new IllegalArgumentException("maxBatchRows must be at least 1");
+            }
+            this.maxBatchRows = maxBatchRows;
+            return this;
+        }
+
+        public Builder withSearchResponseDecoder(SearchResponseDecoder searchResponseDecoder) {
+            this.searchResponseDecoder = Objects.requireNonNull(searchResponseDecoder);
+            return this;
+        }
+
+        public Builder withRequestScheduler(RequestScheduler requestScheduler) {
+            this.requestScheduler = requestScheduler;
+            return this;
+        }
+
+        /**
+         * @param metrics records lookup times, pages per artifact, decode times, bytes downloaded and batching; also
+         *                passed to the default {@link RequestScheduler}
+         */
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        private HttpClient buildHttpClient() {
+            final HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(httpVersion)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+            if (connectTimeout != null) {
+                clientBuilder.connectTimeout(connectTimeout);
+            }
+            if (executor != null) {
+                clientBuilder.executor(executor);
+            }
+            return clientBuilder.build();
         }
-        return null;
     }
 }
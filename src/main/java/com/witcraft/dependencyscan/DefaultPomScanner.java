@@ -8,45 +8,90 @@ import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 import javax.xml.xpath.XPathNodes;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static java.util.function.Predicate.not;
 
 @Log4j2
 public final class DefaultPomScanner implements PomScanner {
 
-    public static final Pattern PATTERN_VARIABLE = Pattern.compile("\\$\\{([^}]*)}");
+    private static final XPathExecutor X_PATH_EXECUTOR = XPathExecutor.newInstance();
+
+    private static final CompiledXPath XPATH_GROUP_ID = X_PATH_EXECUTOR.compile("groupId");
+
+    private static final CompiledXPath XPATH_ARTIFACT_ID = X_PATH_EXECUTOR.compile("artifactId");
+
+    private static final CompiledXPath XPATH_VERSION = X_PATH_EXECUTOR.compile("version");
+
+    private static final CompiledXPath XPATH_SCOPE = X_PATH_EXECUTOR.compile("scope");
+
+    private static final String DEPENDENCIES_PATH = "/project/dependencies/dependency";
 
     @Getter
     private final Path file;
 
+    @Getter
+    private final String contentHash;
+
     private final Document document;
 
     private final XPathExecutor xPathExecutor;
 
-    private final Map<String, String> properties;
+    private final PomModelResolver modelResolver;
+
+    @Getter
+    private final PomModel model;
+
+    private final PropertyInterpolator interpolator;
+
+    private final Timer scanTimer;
 
-    private DefaultPomScanner(Path file) throws IOException, SAXException {
-        this.file = Objects.requireNonNull(file);
-        this.document = XmlUtil.loadXmlDocument(file);
-        this.xPathExecutor = XPathExecutor.newInstance();
-        this.properties = getProperties();
+    private final Histogram dependencyCountHistogram;
+
+    private DefaultPomScanner(Builder builder) throws IOException, SAXException {
+        final long startedAt = System.nanoTime();
+        this.file = Objects.requireNonNull(builder.pomFile);
+        final byte[] content = Files.readAllBytes(file);
+        builder.metrics.counter("pom.bytes").add(content.length);
+        this.contentHash = ScanState.hash(content);
+        this.document = XmlUtil.loadXmlDocument(new ByteArrayInputStream(content));
+        if (document == null) {
+            throw new IOException("Unable to parse %s".formatted(file));
+        }
+        this.xPathExecutor = X_PATH_EXECUTOR;
+        this.modelResolver = Optional.ofNullable(builder.modelResolver)
+            .orElseGet(() -> PomModelResolver.builder().withLocalRepository(builder.localRepository).build());
+        this.model = modelResolver.resolve(file, document);
+        this.interpolator = PropertyInterpolator.forModel(model);
+        this.scanTimer = builder.metrics.timer("pom.scan");
+        this.dependencyCountHistogram = builder.metrics.histogram("pom.dependencies");
+        builder.metrics.timer("pom.load").recordSince(startedAt);
+    }
+
+    /**
+     * @return the POM files this scan depends on, see {@link PomModelResolver#getInputFiles(PomModel)}
+     */
+    public Set<Path> getInputFiles() {
+        return modelResolver.getInputFiles(model);
     }
 
     @Override
     public Map<String, DependencyInfo> scanDependencyInfo() {
-        final XPathNodes managedDependencyNodes = xPathExecutor.xPathNodes(document, "/project/dependencyManagement/dependencies/dependency");
-        final Map<String, DependencyInfo> managedDependencies = buildDependencyInfo(managedDependencyNodes);
+        final long startedAt = System.nanoTime();
+        final Map<String, DependencyInfo> managedDependencies = modelResolver.resolveDependencyManagement(model);
 
-        final XPathNodes dependencyNodes = xPathExecutor.xPathNodes(document, "/project/dependencies/dependency");
+        final XPathNodes dependencyNodes = xPathExecutor.xPathNodes(document, DEPENDENCIES_PATH);
         final Map<String, DependencyInfo> directDependencies = buildDependencyInfo(dependencyNodes, (info) -> {
             final String version = info.getVersion();
             if (version == null || version.isBlank()) {
@@ -57,34 +102,46 @@ public final class DefaultPomScanner implements PomScanner {
             }
         });
 
+        scanTimer.recordSince(startedAt);
+        dependencyCountHistogram.record(directDependencies.size());
         return directDependencies;
     }
 
-    private Map<String, DependencyInfo> buildDependencyInfo(XPathNodes dependencyNodes) {
-        return buildDependencyInfo(dependencyNodes, new HashMap<>());
+    @Override
+    public List<String> scanModules() {
+        final XPathNodes moduleNodes = xPathExecutor.xPathNodes(document, "/project/modules/module");
+        if (moduleNodes == null) {
+            return List.of();
+        }
+        final List<String> modules = new ArrayList<>(moduleNodes.size());
+        for (Node moduleNode : moduleNodes) {
+            Optional.ofNullable(moduleNode.getTextContent())
+                .map(String::trim)
+                .filter(not(String::isBlank))
+                .ifPresent(modules::add);
+        }
+        return modules;
     }
 
     private Map<String, DependencyInfo> buildDependencyInfo(XPathNodes dependencyNodes, Consumer<DependencyInfo.Builder> consumer) {
         return buildDependencyInfo(dependencyNodes, new HashMap<>(), consumer);
     }
 
-    private Map<String, DependencyInfo> buildDependencyInfo(XPathNodes dependencyNodes, Map<String, DependencyInfo> dependencies) {
-        return buildDependencyInfo(dependencyNodes, dependencies, null);
-    }
-
     private Map<String, DependencyInfo> buildDependencyInfo(XPathNodes dependencyNodes, Map<String, DependencyInfo> dependencies, Consumer<DependencyInfo.Builder> consumer) {
         if (dependencyNodes != null) {
+            int position = 0;
             for (Node dependencyNode : dependencyNodes) {
+                position++;
                 if (dependencyNode instanceof Element element) {
-                    final String groupId = resolveVariables(properties, xPathExecutor.xPathText(element, "groupId"));
-                    final String artifactId = resolveVariables(properties, xPathExecutor.xPathText(element, "artifactId"));
-                    final String version = resolveVariables(properties, xPathExecutor.xPathText(element, "version"));
-                    final String scope = Optional.ofNullable(resolveVariables(properties, xPathExecutor.xPathText(element, "scope")))
+                    final String groupId = interpolator.interpolate(XPATH_GROUP_ID.text(element));
+                    final String artifactId = interpolator.interpolate(XPATH_ARTIFACT_ID.text(element));
+                    final String version = interpolator.interpolate(XPATH_VERSION.text(element));
+                    final String scope = Optional.ofNullable(interpolator.interpolate(XPATH_SCOPE.text(element)))
                         .filter(not(String::isBlank))
                         .orElse("compile");
                     final String artifactPath = "%s:%s".formatted(groupId, artifactId);
                     final DependencyInfo.Builder dependencyBuilder = DependencyInfo.builder()
-                        .withElement(element)
+                        .withSource(new SourceLocation(file, "%s[%d]".formatted(DEPENDENCIES_PATH, position)))
                         .withGroupId(groupId)
                         .withArtifactId(artifactId)
                         .withVersion(version)
@@ -99,36 +156,6 @@ public final class DefaultPomScanner implements PomScanner {
         return dependencies;
     }
 
-    private Map<String, String> getProperties() {
-        final Map<String, String> properties = new HashMap<>();
-        final XPathNodes propertyNodes = xPathExecutor.xPathNodes(document, "/project/properties/*");
-        for (Node propertyNode : propertyNodes) {
-            final String propertyName = propertyNode.getNodeName();
-            final String propertyValue = Optional.ofNullable(propertyNode.getTextContent())
-                .map(String::trim)
-                .orElse("");
-
-            properties.put(propertyName, propertyValue);
-        }
-        return properties;
-    }
-
-    private String resolveVariables(Map<String, String> properties, String value) {
-        if (value == null) {
-            return null;
-        }
-
-        final Matcher matcher = PATTERN_VARIABLE.matcher(value);
-        final StringBuilder result = new StringBuilder();
-
-        while (matcher.find()) {
-            matcher.appendReplacement(result, properties.getOrDefault(matcher.group(1), ""));
-        }
-        matcher.appendTail(result);
-
-        return result.toString();
-    }
-
     public static Builder builder(Path file) {
         return new Builder(file);
     }
@@ -136,12 +163,37 @@ public final class DefaultPomScanner implements PomScanner {
     public final static class Builder {
         private final Path pomFile;
 
+        private Path localRepository = PomModelResolver.DEFAULT_LOCAL_REPOSITORY;
+
+        private PomModelResolver modelResolver;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
         private Builder(Path file) {
             this.pomFile = file;
         }
 
-        public PomScanner build() throws IOException, SAXException {
-            return new DefaultPomScanner(pomFile);
+        public DefaultPomScanner build() throws IOException, SAXException {
+            return new DefaultPomScanner(this);
+        }
+
+        public Builder withLocalRepository(Path localRepository) {
+            this.localRepository = Objects.requireNonNull(localRepository);
+            return this;
+        }
+
+        public Builder withModelResolver(PomModelResolver modelResolver) {
+            this.modelResolver = modelResolver;
+            return this;
+        }
+
+        /**
+         * @param metrics records the time to load and resolve the POM ({@code pom.load}), the time to scan its
+         *                dependencies ({@code pom.scan}), its size and its dependency count
+         */
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
         }
     }
 }
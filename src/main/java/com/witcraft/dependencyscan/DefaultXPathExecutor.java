@@ -4,20 +4,48 @@ import lombok.extern.log4j.Log4j2;
 import org.w3c.dom.Node;
 
 import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPathNodes;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Log4j2
 public final class DefaultXPathExecutor implements XPathExecutor {
 
-    private final XPath xPath;
+    static final int MAX_CACHED_EXPRESSIONS = 256;
+
+    static final Timer EVALUATE_TIMER = MetricsRegistry.global().timer("xpath.evaluate");
+
+    private static final Counter COMPILE_COUNTER = MetricsRegistry.global().counter("xpath.compiles");
+
+    // Neither XPath nor XPathExpression is thread-safe, so both are kept per thread.
+    private final ThreadLocal<XPath> xPath;
+
+    private final ThreadLocal<Map<String, XPathExpression>> expressionCache;
 
     DefaultXPathExecutor() {
         final XPathFactory xPathFactory = XPathFactory.newInstance();
-        xPath = xPathFactory.newXPath();
+        xPath = ThreadLocal.withInitial(() -> {
+            synchronized (xPathFactory) {
+                return xPathFactory.newXPath();
+            }
+        });
+        expressionCache = ThreadLocal.withInitial(() -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+                return size() > MAX_CACHED_EXPRESSIONS;
+            }
+        });
+    }
+
+    @Override
+    public CompiledXPath compile(String xPath) {
+        getCompiledExpression(xPath);
+        return new DefaultCompiledXPath(this, xPath);
     }
 
     @Override
@@ -92,10 +120,13 @@ public final class DefaultXPathExecutor implements XPathExecutor {
 
     @Override
     public <T> Optional<T> xPath(Node context, String xPath, Class<T> type) {
+        final long startedAt = System.nanoTime();
         try {
-            return Optional.ofNullable(this.xPath.evaluateExpression(xPath, context, type));
+            return Optional.ofNullable(compileExpression(xPath).evaluateExpression(context, type));
         } catch (XPathExpressionException ex) {
             log.atError().withThrowable(ex).log();
+        } finally {
+            EVALUATE_TIMER.recordSince(startedAt);
         }
         return Optional.empty();
     }
@@ -107,6 +138,25 @@ public final class DefaultXPathExecutor implements XPathExecutor {
             .orElseThrow(() -> new NoSuchElementException(message));
     }
 
+    XPathExpression getCompiledExpression(String xPath) {
+        try {
+            return compileExpression(xPath);
+        } catch (XPathExpressionException ex) {
+            throw new IllegalArgumentException("Invalid XPath expression: %s".formatted(xPath), ex);
+        }
+    }
+
+    private XPathExpression compileExpression(String xPath) throws XPathExpressionException {
+        final Map<String, XPathExpression> cache = expressionCache.get();
+        XPathExpression expression = cache.get(xPath);
+        if (expression == null) {
+            expression = this.xPath.get().compile(xPath);
+            COMPILE_COUNTER.increment();
+            cache.put(xPath, expression);
+        }
+        return expression;
+    }
+
     private static boolean isResultNotEmpty(Object result) {
         return !(result == null || (result instanceof String text && text.isBlank()) || (result instanceof XPathNodes nodes && nodes.size() == 0));
     }
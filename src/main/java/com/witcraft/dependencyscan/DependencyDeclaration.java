@@ -0,0 +1,44 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+public final class DependencyDeclaration {
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final String scope;
+
+    private final String type;
+
+    private final boolean optional;
+
+    /**
+     * The {@code groupId:artifactId} patterns excluded from this dependency's own dependencies; either part may be
+     * {@code *}.
+     */
+    private final Set<String> exclusions;
+
+    public DependencyDeclaration(String groupId, String artifactId, String version, String scope, String type) {
+        this(groupId, artifactId, version, scope, type, false, Set.of());
+    }
+
+    public DependencyDeclaration(String groupId, String artifactId, String version, String scope, String type, boolean optional, Set<String> exclusions) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.scope = scope;
+        this.type = type;
+        this.optional = optional;
+        this.exclusions = Set.copyOf(exclusions);
+    }
+
+    public String getArtifactPath() {
+        return "%s:%s".formatted(groupId, artifactId);
+    }
+}
@@ -0,0 +1,37 @@
+package com.witcraft.dependencyscan;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A module's resolved dependency graph: one node per {@code groupId:artifactId}, the version Maven would pick for it,
+ * in breadth-first order, so the direct dependencies come first.
+ */
+public record DependencyGraph(List<Node> nodes) {
+    public DependencyGraph {
+        nodes = List.copyOf(nodes);
+    }
+
+    /**
+     * @return every dependency in the graph, direct and transitive, keyed by {@code groupId:artifactId}
+     */
+    public Map<String, DependencyInfo> getDependencies() {
+        final Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+        nodes.forEach(node -> dependencies.put(node.dependency().getGroupArtifact(), node.dependency()));
+        return Collections.unmodifiableMap(dependencies);
+    }
+
+    public long getTransitiveCount() {
+        return nodes.stream().filter(node -> node.depth() > 1).count();
+    }
+
+    /**
+     * @param depth  1 for a direct dependency
+     * @param parent the {@code groupId:artifactId:version} of the dependency that brought this one in, or {@code null}
+     *               for a direct dependency
+     */
+    public record Node(DependencyInfo dependency, int depth, String parent) {
+    }
+}
@@ -0,0 +1,288 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expands a module's direct dependencies into its transitive dependency graph the way Maven mediates it: the nearest
+ * declaration of a {@code groupId:artifactId} wins, and the first one wins between equally near declarations;
+ * exclusions apply to everything below the dependency that declares them; optional dependencies and the
+ * {@code provided} and {@code test} dependencies of dependencies are left out; and the module's own dependency
+ * management overrides the versions found further down.
+ * <p>
+ * The graph is walked one level at a time. The POMs of a level are fetched and read in parallel, then merged in
+ * declaration order, so the outcome does not depend on which fetch finishes first. What each
+ * {@code groupId:artifactId:version} declares is worked out once per resolver and shared by every module resolved
+ * with it.
+ * <p>
+ * Fetching a POM blocks on the network, so unless an executor is given the resolver fetches on a fixed pool of daemon
+ * threads of its own, which {@link #close()} releases.
+ */
+@Log4j2
+public final class DependencyGraphResolver implements AutoCloseable {
+    public static final int DEFAULT_FETCH_THREADS = 8;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final PomModelResolver modelResolver;
+
+    private final Executor executor;
+
+    private final ExecutorService ownedExecutor;
+
+    private final Map<String, CompletableFuture<List<DependencyDeclaration>>> declarationsByCoordinates = new ConcurrentHashMap<>();
+
+    private final Timer resolveTimer;
+
+    private final Histogram nodeCountHistogram;
+
+    private DependencyGraphResolver(Builder builder) {
+        this.modelResolver = Objects.requireNonNull(builder.modelResolver);
+        this.ownedExecutor = (builder.executor == null ? Executors.newFixedThreadPool(builder.fetchThreads, newThreadFactory()) : null);
+        this.executor = Optional.<Executor>ofNullable(builder.executor).orElse(ownedExecutor);
+        this.resolveTimer = builder.metrics.timer("graph.resolve");
+        this.nodeCountHistogram = builder.metrics.histogram("graph.nodes");
+    }
+
+    public static Builder builder(PomModelResolver modelResolver) {
+        return new Builder(modelResolver);
+    }
+
+    /**
+     * @return the graph below {@code module}'s dependencies; transitive dependencies carry the source location of the
+     * direct dependency they were found through
+     */
+    public DependencyGraph resolve(ReactorModule module) {
+        final long startedAt = System.nanoTime();
+        final PomModel model = modelResolver.resolve(module.pomFile());
+        final Map<String, DependencyInfo> managedDependencies = (model == null ? Map.of() : modelResolver.resolveDependencyManagement(model));
+        final Map<String, DependencyDeclaration> declarations = new LinkedHashMap<>();
+        if (model != null) {
+            resolveDeclarations(model).forEach(declaration -> declarations.put(declaration.getArtifactPath(), declaration));
+        }
+
+        final Map<String, DependencyGraph.Node> selected = new LinkedHashMap<>();
+        List<Pending> level = new ArrayList<>();
+        if (model != null) {
+            // A dependency cycle back to the module itself must not add the module as its own dependency.
+            selected.put("%s:%s".formatted(model.getGroupId(), model.getArtifactId()), null);
+        }
+        for (DependencyInfo dependency : module.dependencies().values()) {
+            final DependencyGraph.Node node = new DependencyGraph.Node(dependency, 1, null);
+            selected.put(dependency.getGroupArtifact(), node);
+            final Set<String> exclusions = Optional.ofNullable(declarations.get(dependency.getGroupArtifact()))
+                .map(DependencyDeclaration::getExclusions)
+                .orElse(Set.of());
+            if (isResolvable(dependency.getVersion()) && !"system".equals(dependency.getScope())) {
+                level.add(new Pending(node, exclusions));
+            }
+        }
+
+        while (!level.isEmpty()) {
+            final List<CompletableFuture<List<DependencyDeclaration>>> lookups = level.stream()
+                .map(pending -> declarationsOf(pending.node().dependency()))
+                .toList();
+            final List<Pending> nextLevel = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                final Pending pending = level.get(i);
+                final DependencyInfo parent = pending.node().dependency();
+                for (DependencyDeclaration declaration : lookups.get(i).join()) {
+                    final String artifactPath = declaration.getArtifactPath();
+                    final String scope = mediateScope(parent.getScope(), declaration.getScope());
+                    if (declaration.isOptional() || scope == null || selected.containsKey(artifactPath) || isExcluded(pending.exclusions(), declaration)) {
+                        continue;
+                    }
+                    final String version = Optional.ofNullable(managedDependencies.get(artifactPath))
+                        .map(DependencyInfo::getVersion)
+                        .orElse(declaration.getVersion());
+                    if (!isResolvable(version)) {
+                        log.atDebug().log("[{}] Skipping {} with unresolvable version {}", parent.getGroupArtifactVersion(), artifactPath, version);
+                        continue;
+                    }
+                    final DependencyGraph.Node node = new DependencyGraph.Node(
+                        DependencyInfo.builder()
+                            .withGroupId(declaration.getGroupId())
+                            .withArtifactId(declaration.getArtifactId())
+                            .withVersion(version)
+                            .withScope(scope)
+                            .withSource(parent.getSource())
+                            .build(),
+                        pending.node().depth() + 1,
+                        parent.getGroupArtifactVersion()
+                    );
+                    selected.put(artifactPath, node);
+                    final Set<String> exclusions = new LinkedHashSet<>(pending.exclusions());
+                    exclusions.addAll(declaration.getExclusions());
+                    nextLevel.add(new Pending(node, exclusions));
+                }
+            }
+            level = nextLevel;
+        }
+
+        final DependencyGraph graph = new DependencyGraph(selected.values().stream().filter(Objects::nonNull).toList());
+        resolveTimer.recordSince(startedAt);
+        nodeCountHistogram.record(graph.nodes().size());
+        return graph;
+    }
+
+    /**
+     * Releases the fetch threads, if the resolver created them.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private CompletableFuture<List<DependencyDeclaration>> declarationsOf(DependencyInfo dependency) {
+        return declarationsByCoordinates.computeIfAbsent(dependency.getGroupArtifactVersion(), coordinates -> CompletableFuture.supplyAsync(() -> {
+            final PomModel model = modelResolver.resolve(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+            return (model == null ? List.<DependencyDeclaration>of() : resolveDeclarations(model));
+        }, executor).exceptionally(ex -> {
+            log.atWarn().log("[{}] Unable to read dependencies: {}", coordinates, ex.toString());
+            return List.of();
+        }));
+    }
+
+    /**
+     * @return {@code model}'s dependencies with properties interpolated and missing versions taken from its dependency
+     * management
+     */
+    private List<DependencyDeclaration> resolveDeclarations(PomModel model) {
+        final PropertyInterpolator interpolator = PropertyInterpolator.forModel(model);
+        Map<String, DependencyInfo> managedDependencies = null;
+        final List<DependencyDeclaration> declarations = new ArrayList<>(model.getDependencies().size());
+        for (DependencyDeclaration declaration : model.getDependencies()) {
+            final String groupId = interpolator.interpolate(declaration.getGroupId());
+            final String artifactId = interpolator.interpolate(declaration.getArtifactId());
+            String version = interpolator.interpolate(declaration.getVersion());
+            if (groupId == null || artifactId == null) {
+                continue;
+            }
+            if (version == null || version.isBlank()) {
+                if (managedDependencies == null) {
+                    managedDependencies = modelResolver.resolveDependencyManagement(model);
+                }
+                version = Optional.ofNullable(managedDependencies.get("%s:%s".formatted(groupId, artifactId)))
+                    .map(DependencyInfo::getVersion)
+                    .orElse(null);
+            }
+            final Set<String> exclusions = new LinkedHashSet<>();
+            declaration.getExclusions().forEach(exclusion -> exclusions.add(interpolator.interpolate(exclusion)));
+            declarations.add(new DependencyDeclaration(
+                groupId.trim(),
+                artifactId.trim(),
+                (version == null ? null : version.trim()),
+                interpolator.interpolate(declaration.getScope()),
+                declaration.getType(),
+                declaration.isOptional(),
+                exclusions
+            ));
+        }
+        return List.copyOf(declarations);
+    }
+
+    /**
+     * @return the scope a dependency declared with {@code scope} gets below a dependency in {@code parentScope}, or
+     * {@code null} if it is not part of the graph at all
+     */
+    static String mediateScope(String parentScope, String scope) {
+        if (!"compile".equals(scope) && !"runtime".equals(scope)) {
+            return null;
+        }
+        return switch (parentScope) {
+            case "compile" -> scope;
+            case "runtime", "provided", "test" -> parentScope;
+            default -> null;
+        };
+    }
+
+    static boolean isExcluded(Set<String> exclusions, DependencyDeclaration declaration) {
+        for (String exclusion : exclusions) {
+            final int separator = exclusion.indexOf(':');
+            final String groupId = exclusion.substring(0, separator);
+            final String artifactId = exclusion.substring(separator + 1);
+            if (("*".equals(groupId) || groupId.equals(declaration.getGroupId())) && ("*".equals(artifactId) || artifactId.equals(declaration.getArtifactId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Ranges would need the repository's version list to pick from; unresolved properties cannot be fetched at all.
+    private static boolean isResolvable(String version) {
+        return version != null && !version.isBlank() && !version.contains("${") && !version.startsWith("[") && !version.startsWith("(");
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        final int poolId = POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "graph-fetch-%d-%d".formatted(poolId, threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Pending(DependencyGraph.Node node, Set<String> exclusions) {
+    }
+
+    public static final class Builder {
+        private final PomModelResolver modelResolver;
+
+        private Executor executor;
+
+        private int fetchThreads = DEFAULT_FETCH_THREADS;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder(PomModelResolver modelResolver) {
+            this.modelResolver = Objects.requireNonNull(modelResolver);
+        }
+
+        public DependencyGraphResolver build() {
+            return new DependencyGraphResolver(this);
+        }
+
+        /**
+         * @param executor where to fetch and read POMs, or {@code null} for a pool of
+         *                 {@link #withFetchThreads(int) fetchThreads} threads of the resolver's own
+         */
+        public Builder withExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param fetchThreads how many POMs the resolver's own pool fetches at once; unused when an executor is given
+         */
+        public Builder withFetchThreads(int fetchThreads) {
+            if (fetchThreads < 1) {
+                throw new IllegalArgumentException("fetchThreads must be at least 1");
+            }
+            this.fetchThreads = fetchThreads;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -4,15 +4,12 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Setter;
 import lombok.ToString;
-import org.w3c.dom.Element;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.Optional;
 import java.util.StringJoiner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static lombok.AccessLevel.NONE;
 
@@ -21,10 +18,6 @@ public final class DependencyInfo {
 
     private static final Duration ONE_DAY = Duration.ofDays(1);
 
-    private static final Pattern PATTERN_PERIOD = Pattern.compile("\\.");
-
-    private static final Pattern PATTERN_REVISION = Pattern.compile("^(?<revision>\\d+)(?<suffix>.*)$");
-
     private static final ZoneId SYSTEM_DEFAULT_ZONE_ID = ZoneId.systemDefault();
 
     private final String groupId;
@@ -39,61 +32,37 @@ public final class DependencyInfo {
 
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
-    private final Element element;
-
-    @EqualsAndHashCode.Exclude
-    @ToString.Exclude
-    private final String majorVersion;
-
-    @EqualsAndHashCode.Exclude
-    @ToString.Exclude
-    private final String minorVersion;
-
-    @EqualsAndHashCode.Exclude
-    @ToString.Exclude
-    private final String revisionVersion;
+    private final SourceLocation source;
 
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
-    private final String versionSuffix;
+    private final Version parsedVersion;
 
-    private DependencyInfo(String groupId, String artifactId, String version, Instant publishDate, String scope, Element element) {
+    private DependencyInfo(String groupId, String artifactId, String version, Instant publishDate, String scope, SourceLocation source) {
         this.groupId = Optional.ofNullable(groupId).map(String::trim).orElseThrow(() -> new NullPointerException("groupId"));
         this.artifactId = Optional.ofNullable(artifactId).map(String::trim).orElseThrow(() -> new NullPointerException("artifactId"));
         this.version = Optional.ofNullable(version).map(String::trim).orElseThrow(() -> new NullPointerException("version"));
         this.publishDate = publishDate;
         this.scope = Optional.ofNullable(scope).map(String::trim).orElse("compile");
-        this.element = element;
-
-        final String[] versionParts = PATTERN_PERIOD.split(this.version);
-
-        if (versionParts.length > 2) {
-            this.majorVersion = versionParts[0];
-            this.minorVersion = versionParts[1];
-            final Matcher revisionMatcher = PATTERN_REVISION.matcher(versionParts[2]);
-            if (revisionMatcher.find()) {
-                this.revisionVersion = revisionMatcher.group("revision");
-                this.versionSuffix = revisionMatcher.group("suffix");
-            } else {
-                this.revisionVersion = versionParts[2];
-                this.versionSuffix = null;
-            }
-        } else if (versionParts.length > 1) {
-            this.majorVersion = versionParts[0];
-            this.minorVersion = versionParts[1];
-            this.revisionVersion = null;
-            this.versionSuffix = null;
-        } else if (versionParts.length > 0) {
-            this.majorVersion = versionParts[0];
-            this.minorVersion = null;
-            this.revisionVersion = null;
-            this.versionSuffix = null;
-        } else {
-            this.majorVersion = null;
-            this.minorVersion = null;
-            this.revisionVersion = null;
-            this.versionSuffix = null;
-        }
+        this.source = source;
+
+        this.parsedVersion = Version.parse(this.version);
+    }
+
+    public String getMajorVersion() {
+        return (parsedVersion.getComponentCount() > 0 ? Long.toString(parsedVersion.getMajor()) : version);
+    }
+
+    public String getMinorVersion() {
+        return (parsedVersion.getComponentCount() > 1 ? Long.toString(parsedVersion.getMinor()) : null);
+    }
+
+    public String getRevisionVersion() {
+        return (parsedVersion.getComponentCount() > 2 ? Long.toString(parsedVersion.getPatch()) : null);
+    }
+
+    public String getVersionSuffix() {
+        return parsedVersion.getSuffix();
     }
 
     public String getAge() {
@@ -119,6 +88,14 @@ public final class DependencyInfo {
         return "%s:%s:%s".formatted(groupId, artifactId, version);
     }
 
+    /**
+     * @return another version of this artifact as a repository lists it: coordinates and publish date only, without
+     * the scope or source location of the declaration this dependency came from
+     */
+    public DependencyInfo toVersion(String version, Instant publishDate) {
+        return new DependencyInfo(groupId, artifactId, version, publishDate, null, null);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -129,7 +106,7 @@ public final class DependencyInfo {
             .withArtifactId(dependency.getArtifactId())
             .withVersion(dependency.getVersion())
             .withScope(dependency.getScope())
-            .withElement(dependency.getElement())
+            .withSource(dependency.getSource())
             .withPublishDate(dependency.getPublishDate());
     }
 
@@ -137,8 +114,10 @@ public final class DependencyInfo {
     public String toString() {
         final StringJoiner joiner = new StringJoiner(", ", "Dependency(", ")");
         joiner.add("version=\"%s\"".formatted(version));
-        joiner.add("published=\"%s ago\"".formatted(getAge().toLowerCase()));
-        joiner.add("publishDate=\"%s\"".formatted(publishDate.atOffset(SYSTEM_DEFAULT_ZONE_ID.getRules().getStandardOffset(publishDate))));
+        if (publishDate != null) {
+            joiner.add("published=\"%s ago\"".formatted(getAge().toLowerCase()));
+            joiner.add("publishDate=\"%s\"".formatted(publishDate.atOffset(SYSTEM_DEFAULT_ZONE_ID.getRules().getStandardOffset(publishDate))));
+        }
         return joiner.toString();
     }
 
@@ -157,7 +136,7 @@ public final class DependencyInfo {
         private String scope;
 
         @Setter(NONE)
-        private Element element;
+        private SourceLocation source;
 
         @Setter(NONE)
         private Instant publishDate;
@@ -170,7 +149,7 @@ public final class DependencyInfo {
         }
 
         public DependencyInfo build() {
-            return new DependencyInfo(this.groupId, this.artifactId, this.version, this.publishDate, this.scope, this.element);
+            return new DependencyInfo(this.groupId, this.artifactId, this.version, this.publishDate, this.scope, this.source);
         }
 
         public Builder withArtifactId(String artifactId) {
@@ -178,8 +157,8 @@ public final class DependencyInfo {
             return this;
         }
 
-        public Builder withElement(Element element) {
-            this.element = element;
+        public Builder withSource(SourceLocation source) {
+            this.source = source;
             return this;
         }
 
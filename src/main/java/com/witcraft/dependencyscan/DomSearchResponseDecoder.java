@@ -0,0 +1,64 @@
+package com.witcraft.dependencyscan;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathNodes;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+final class DomSearchResponseDecoder implements SearchResponseDecoder {
+
+    private final XPathExecutor xPathExecutor;
+
+    private final CompiledXPath resultXPath;
+
+    private final CompiledXPath groupIdXPath;
+
+    private final CompiledXPath artifactIdXPath;
+
+    private final CompiledXPath versionXPath;
+
+    private final CompiledXPath timestampXPath;
+
+    DomSearchResponseDecoder() {
+        this.xPathExecutor = XPathExecutor.newInstance();
+        this.resultXPath = xPathExecutor.compile("/response/result[@name = 'response']");
+        this.groupIdXPath = xPathExecutor.compile("str[@name = 'g']");
+        this.artifactIdXPath = xPathExecutor.compile("str[@name = 'a']");
+        this.versionXPath = xPathExecutor.compile("str[@name = 'v']");
+        this.timestampXPath = xPathExecutor.compile("long[@name = 'timestamp']");
+    }
+
+    @Override
+    public void decode(InputStream body, SearchResponseHandler handler) throws IOException {
+        final Document document = XmlUtil.loadXmlDocument(body);
+        if (document == null) {
+            throw new IOException("Malformed search response");
+        }
+
+        final Node resultNode = resultXPath.node(document);
+        if (resultNode == null) {
+            return;
+        }
+        handler.onResult(
+            Optional.ofNullable(xPathExecutor.xPathInteger(resultNode, "@numFound")).orElse(0),
+            Optional.ofNullable(xPathExecutor.xPathInteger(resultNode, "@start")).orElse(0)
+        );
+
+        final XPathNodes items = xPathExecutor.xPathNodes(resultNode, "doc");
+        if (items == null) {
+            return;
+        }
+        for (Node item : items) {
+            final String groupId = groupIdXPath.text(item);
+            final String artifactId = artifactIdXPath.text(item);
+            final String version = versionXPath.text(item);
+            final long timestamp = Optional.ofNullable(timestampXPath.longValue(item)).orElse(0L);
+            if (!handler.onDocument(groupId, artifactId, version, timestamp)) {
+                return;
+            }
+        }
+    }
+}
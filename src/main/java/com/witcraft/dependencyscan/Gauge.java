@@ -0,0 +1,29 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value computed when it is read, such as a hit ratio derived from two counters.
+ */
+public final class Gauge implements Metric {
+    @Getter
+    private final String name;
+
+    private final DoubleSupplier value;
+
+    Gauge(String name, DoubleSupplier value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public double getValue() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public String toString() {
+        return "%s=%s".formatted(name, getValue());
+    }
+}
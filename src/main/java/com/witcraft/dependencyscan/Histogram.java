@@ -0,0 +1,117 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The distribution of non-negative values, such as pages fetched per artifact.
+ * <p>
+ * Values are counted in log-linear buckets: exact below {@value #LINEAR_LIMIT}, then eight buckets per power of two,
+ * so a percentile is accurate to within 12.5% at a fixed cost of a few kilobytes per histogram. Recording is lock-free.
+ */
+public final class Histogram implements Metric {
+    private static final int LINEAR_LIMIT = 16;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int FIRST_LOG_EXPONENT = 4;
+
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - FIRST_LOG_EXPONENT) * SUB_BUCKETS;
+
+    @Getter
+    private final String name;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    Histogram(String name) {
+        this.name = name;
+    }
+
+    public void record(long value) {
+        final long clamped = Math.max(0, value);
+        buckets.incrementAndGet(bucketIndex(clamped));
+        count.increment();
+        sum.add(clamped);
+        min.accumulate(clamped);
+        max.accumulate(clamped);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMin() {
+        return (getCount() == 0 ? 0 : min.get());
+    }
+
+    public long getMax() {
+        return (getCount() == 0 ? 0 : max.get());
+    }
+
+    public double getMean() {
+        final long recorded = getCount();
+        return (recorded == 0 ? 0 : (double) getSum() / recorded);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the upper bound of the bucket holding the value at {@code percentile}, never more than {@link #getMax()}
+     */
+    public long getPercentile(double percentile) {
+        final long recorded = getCount();
+        if (recorded == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * recorded));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += buckets.get(i);
+            if (cumulative >= rank) {
+                return Math.min(bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - FIRST_LOG_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int exponent = FIRST_LOG_EXPONENT + (index - LINEAR_LIMIT) / SUB_BUCKETS;
+        final int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        final long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (lowerBound > Long.MAX_VALUE - width ? Long.MAX_VALUE : lowerBound + width - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "%s(count=%d, mean=%.1f, p50=%d, p95=%d, p99=%d, max=%d)".formatted(name, getCount(), getMean(), getPercentile(50), getPercentile(95), getPercentile(99), getMax());
+    }
+}
@@ -0,0 +1,202 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Exposes each metric as an MXBean named {@code com.witcraft.dependencyscan:type=<Type>,name=<metric name>}, so a
+ * long scan can be watched from JConsole or VisualVM while it runs.
+ */
+@Log4j2
+public final class JmxMetricsSink implements MetricsSink, AutoCloseable {
+    public static final String DOMAIN = "com.witcraft.dependencyscan";
+
+    private final MBeanServer mBeanServer;
+
+    private final List<ObjectName> registeredNames = new CopyOnWriteArrayList<>();
+
+    public JmxMetricsSink() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsSink(MBeanServer mBeanServer) {
+        this.mBeanServer = Objects.requireNonNull(mBeanServer);
+    }
+
+    @Override
+    public void metricRegistered(Metric metric) {
+        try {
+            final ObjectName objectName = new ObjectName("%s:type=%s,name=%s".formatted(DOMAIN, metric.getClass().getSimpleName(), ObjectName.quote(metric.getName())));
+            if (mBeanServer.isRegistered(objectName)) {
+                return;
+            }
+            mBeanServer.registerMBean(toMBean(metric), objectName);
+            registeredNames.add(objectName);
+        } catch (JMException ex) {
+            log.atWarn().withThrowable(ex).log("Failed to register metric {} with JMX", metric.getName());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ObjectName objectName : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException ex) {
+                log.atDebug().withThrowable(ex).log();
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private static StandardMBean toMBean(Metric metric) {
+        if (metric instanceof Counter counter) {
+            return new StandardMBean(new CounterView(counter), CounterMXBean.class, true);
+        }
+        if (metric instanceof Gauge gauge) {
+            return new StandardMBean(new GaugeView(gauge), GaugeMXBean.class, true);
+        }
+        if (metric instanceof Histogram histogram) {
+            return new StandardMBean(new HistogramView(histogram), HistogramMXBean.class, true);
+        }
+        return new StandardMBean(new TimerView((Timer) metric), TimerMXBean.class, true);
+    }
+
+    public interface CounterMXBean {
+        long getCount();
+    }
+
+    public interface GaugeMXBean {
+        double getValue();
+    }
+
+    public interface HistogramMXBean {
+        long getCount();
+
+        long getMin();
+
+        long getMax();
+
+        double getMean();
+
+        long getP50();
+
+        long getP95();
+
+        long getP99();
+    }
+
+    public interface TimerMXBean {
+        long getCount();
+
+        double getTotalMillis();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP95Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+    }
+
+    private record CounterView(Counter counter) implements CounterMXBean {
+        @Override
+        public long getCount() {
+            return counter.getCount();
+        }
+    }
+
+    private record GaugeView(Gauge gauge) implements GaugeMXBean {
+        @Override
+        public double getValue() {
+            return gauge.getValue();
+        }
+    }
+
+    private record HistogramView(Histogram histogram) implements HistogramMXBean {
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public long getMin() {
+            return histogram.getMin();
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getMax();
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getMean();
+        }
+
+        @Override
+        public long getP50() {
+            return histogram.getPercentile(50);
+        }
+
+        @Override
+        public long getP95() {
+            return histogram.getPercentile(95);
+        }
+
+        @Override
+        public long getP99() {
+            return histogram.getPercentile(99);
+        }
+    }
+
+    private record TimerView(Timer timer) implements TimerMXBean {
+        private static final double NANOS_PER_MILLI = 1_000_000d;
+
+        @Override
+        public long getCount() {
+            return timer.getCount();
+        }
+
+        @Override
+        public double getTotalMillis() {
+            return timer.getHistogram().getSum() / NANOS_PER_MILLI;
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return timer.getHistogram().getMean() / NANOS_PER_MILLI;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return timer.getHistogram().getPercentile(50) / NANOS_PER_MILLI;
+        }
+
+        @Override
+        public double getP95Millis() {
+            return timer.getHistogram().getPercentile(95) / NANOS_PER_MILLI;
+        }
+
+        @Override
+        public double getP99Millis() {
+            return timer.getHistogram().getPercentile(99) / NANOS_PER_MILLI;
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return timer.getHistogram().getMax() / NANOS_PER_MILLI;
+        }
+    }
+}
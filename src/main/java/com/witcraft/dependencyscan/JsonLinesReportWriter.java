@@ -0,0 +1,33 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes each dependency as a JSON object on a line of its own, flushed as soon as it is written, so the report can
+ * be tailed while the scan is running.
+ */
+final class JsonLinesReportWriter implements ReportWriter {
+    private final JsonWriter json;
+
+    private final String generatedAt;
+
+    JsonLinesReportWriter(JsonWriter json, Instant now) {
+        this.json = json;
+        this.generatedAt = now.toString();
+    }
+
+    @Override
+    public void write(ArtifactVersionHistory versionHistory) throws IOException {
+        json.beginObject()
+            .name("generatedAt").value(generatedAt);
+        ReportJson.writeDependencyFields(json, versionHistory);
+        json.endObject();
+        json.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.flush();
+    }
+}
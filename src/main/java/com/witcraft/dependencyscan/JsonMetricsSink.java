@@ -0,0 +1,115 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Writes an end-of-run summary of every metric as one JSON document, keyed by metric name. Timer values are in
+ * milliseconds.
+ */
+@Log4j2
+public final class JsonMetricsSink implements MetricsSink {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final Path file;
+
+    private final OutputStream output;
+
+    private JsonMetricsSink(Path file, OutputStream output) {
+        this.file = file;
+        this.output = output;
+    }
+
+    public static JsonMetricsSink toFile(Path file) {
+        return new JsonMetricsSink(Objects.requireNonNull(file), null);
+    }
+
+    /**
+     * @param output written to and flushed, but not closed
+     */
+    public static JsonMetricsSink toStream(OutputStream output) {
+        return new JsonMetricsSink(null, Objects.requireNonNull(output));
+    }
+
+    @Override
+    public void report(MetricsRegistry registry) {
+        try {
+            if (file != null) {
+                final Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    write(registry, writer);
+                }
+                log.atDebug().log("Wrote metrics to {}", file);
+            } else {
+                final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+                write(registry, writer);
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static void write(MetricsRegistry registry, Writer writer) throws IOException {
+        final JsonWriter json = new JsonWriter(writer);
+        json.beginObject();
+        for (Metric metric : registry.getMetrics()) {
+            json.name(metric.getName());
+            describe(metric, json);
+        }
+        json.endObject();
+    }
+
+    private static void describe(Metric metric, JsonWriter json) throws IOException {
+        json.beginObject();
+        if (metric instanceof Counter counter) {
+            json.name("type").value("counter")
+                .name("count").value(counter.getCount());
+        } else if (metric instanceof Gauge gauge) {
+            json.name("type").value("gauge")
+                .name("value").value(round(gauge.getValue()));
+        } else if (metric instanceof Histogram histogram) {
+            json.name("type").value("histogram")
+                .name("count").value(histogram.getCount())
+                .name("sum").value(histogram.getSum())
+                .name("min").value(histogram.getMin())
+                .name("max").value(histogram.getMax())
+                .name("mean").value(round(histogram.getMean()))
+                .name("p50").value(histogram.getPercentile(50))
+                .name("p95").value(histogram.getPercentile(95))
+                .name("p99").value(histogram.getPercentile(99));
+        } else {
+            final Histogram histogram = ((Timer) metric).getHistogram();
+            json.name("type").value("timer")
+                .name("count").value(histogram.getCount())
+                .name("totalMs").value(toMillis(histogram.getSum()))
+                .name("meanMs").value(round(histogram.getMean() / NANOS_PER_MILLI))
+                .name("p50Ms").value(toMillis(histogram.getPercentile(50)))
+                .name("p95Ms").value(toMillis(histogram.getPercentile(95)))
+                .name("p99Ms").value(toMillis(histogram.getPercentile(99)))
+                .name("maxMs").value(toMillis(histogram.getMax()));
+        }
+        json.endObject();
+    }
+
+    private static double toMillis(long nanos) {
+        return round(nanos / NANOS_PER_MILLI);
+    }
+
+    // Three decimals is plenty for a summary; non-finite values pass through and are written as null.
+    private static double round(double value) {
+        return (Double.isFinite(value) ? Math.round(value * 1000d) / 1000d : value);
+    }
+}
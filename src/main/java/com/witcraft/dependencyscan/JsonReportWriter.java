@@ -0,0 +1,71 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Writes one JSON document: when the report was generated, the dependencies in the order their lookups completed,
+ * and a summary. The summary comes last because it is only known once every dependency has been written.
+ */
+final class JsonReportWriter implements ReportWriter {
+    private final JsonWriter json;
+
+    private final Instant now;
+
+    private boolean started;
+
+    private boolean closed;
+
+    private int dependencyCount;
+
+    private int outdatedCount;
+
+    private int incompleteCount;
+
+    JsonReportWriter(JsonWriter json, Instant now) {
+        this.json = json;
+        this.now = now;
+    }
+
+    @Override
+    public void write(ArtifactVersionHistory versionHistory) throws IOException {
+        start();
+        json.beginObject();
+        ReportJson.writeDependencyFields(json, versionHistory);
+        json.endObject();
+        dependencyCount++;
+        if (ReportJson.isOutdated(versionHistory)) {
+            outdatedCount++;
+        }
+        if (!versionHistory.isComplete()) {
+            incompleteCount++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        start();
+        json.endArray()
+            .name("summary").beginObject()
+            .name("dependencies").value(dependencyCount)
+            .name("outdated").value(outdatedCount)
+            .name("incomplete").value(incompleteCount)
+            .endObject()
+            .endObject();
+        json.flush();
+    }
+
+    private void start() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        json.beginObject()
+            .name("generatedAt").value(now)
+            .name("dependencies").beginArray();
+    }
+}
@@ -0,0 +1,189 @@
+package com.witcraft.dependencyscan;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * Writes JSON straight to a {@link Writer} as it is produced, without building a tree, so a document of any size is
+ * written in constant memory. Each top-level value ends with a newline, so a sequence of them is JSON lines.
+ * <p>
+ * Calls are checked only as far as needed to place separators: a misplaced name, value or end throws
+ * {@link IllegalStateException}.
+ */
+public final class JsonWriter implements Closeable, Flushable {
+    private final Writer writer;
+
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+
+    public JsonWriter(Writer writer) {
+        this.writer = Objects.requireNonNull(writer);
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writer.write('{');
+        scopes.push(new Scope(true));
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        end(true);
+        writer.write('}');
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writer.write('[');
+        scopes.push(new Scope(false));
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        end(false);
+        writer.write(']');
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        final Scope scope = scopes.peek();
+        if (scope == null || !scope.object || scope.afterName) {
+            throw new IllegalStateException("A name is only allowed directly inside an object");
+        }
+        if (!scope.empty) {
+            writer.write(',');
+        }
+        scope.empty = false;
+        scope.afterName = true;
+        writeString(name);
+        writer.write(':');
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        afterValue();
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        return rawValue(Long.toString(value));
+    }
+
+    /**
+     * JSON has no NaN or Infinity, so those are written as {@code null}.
+     */
+    public JsonWriter value(double value) throws IOException {
+        return (Double.isFinite(value) ? rawValue(Double.toString(value)) : nullValue());
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        return rawValue(Boolean.toString(value));
+    }
+
+    /**
+     * Writes {@code value} with {@link Object#toString()}, or {@code null}.
+     */
+    public JsonWriter value(Object value) throws IOException {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        return rawValue("null");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private JsonWriter rawValue(String literal) throws IOException {
+        beforeValue();
+        writer.write(literal);
+        afterValue();
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        final Scope scope = scopes.peek();
+        if (scope == null) {
+            return;
+        }
+        if (scope.object) {
+            if (!scope.afterName) {
+                throw new IllegalStateException("A value inside an object needs a name");
+            }
+            scope.afterName = false;
+        } else {
+            if (!scope.empty) {
+                writer.write(',');
+            }
+            scope.empty = false;
+        }
+    }
+
+    private void afterValue() throws IOException {
+        if (scopes.isEmpty()) {
+            writer.write('\n');
+        }
+    }
+
+    private void end(boolean object) {
+        final Scope scope = scopes.peek();
+        if (scope == null || scope.object != object || scope.afterName) {
+            throw new IllegalStateException("Nothing to end with " + (object ? "endObject" : "endArray"));
+        }
+        scopes.pop();
+    }
+
+    private void writeString(String value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final String escape = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> (c < 0x20 ? "\\u%04x".formatted((int) c) : null);
+            };
+            if (escape != null) {
+                writer.write(value, start, i - start);
+                writer.write(escape);
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+
+    private static final class Scope {
+        private final boolean object;
+
+        private boolean empty = true;
+
+        private boolean afterName;
+
+        private Scope(boolean object) {
+            this.object = object;
+        }
+    }
+}
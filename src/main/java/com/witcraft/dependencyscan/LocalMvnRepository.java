@@ -0,0 +1,129 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Looks up versions in a repository on the local filesystem laid out like a Maven repository, such as
+ * {@code ~/.m2/repository} or an offline copy of a mirror.
+ * <p>
+ * Versions are read from every {@code maven-metadata*.xml} file of the artifact. When there is none, the version
+ * directories that contain the artifact's POM are used instead.
+ */
+@Log4j2
+public final class LocalMvnRepository implements MvnRepository {
+    private static final String METADATA_PREFIX = "maven-metadata";
+
+    private static final String METADATA_SUFFIX = ".xml";
+
+    @Getter
+    private final Path root;
+
+    private LocalMvnRepository(Builder builder) {
+        this.root = builder.root.toAbsolutePath().normalize();
+    }
+
+    public static LocalMvnRepository newInstance() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+        final Path artifactDirectory = root.resolve(dependency.getGroupId().replace('.', '/')).resolve(dependency.getArtifactId()).normalize();
+        if (!PomModelResolver.isValidCoordinate(dependency.getGroupId()) || !PomModelResolver.isValidCoordinate(dependency.getArtifactId()) || !artifactDirectory.startsWith(root)) {
+            log.atWarn().log("[{}] Not a valid groupId:artifactId for {}", dependency.getGroupArtifact(), root);
+            return ArtifactVersionHistory.of(dependency);
+        }
+        if (!Files.isDirectory(artifactDirectory)) {
+            log.atDebug().log("[{}] Not found in {}", dependency.getGroupArtifact(), root);
+            return ArtifactVersionHistory.of(dependency);
+        }
+
+        final MavenMetadata metadata = new MavenMetadata();
+        try {
+            for (Path metadataFile : listMetadataFiles(artifactDirectory)) {
+                final Document document = XmlUtil.loadXmlDocument(metadataFile);
+                if (document != null) {
+                    metadata.merge(document);
+                }
+            }
+            if (metadata.isEmpty()) {
+                metadata.mergeVersions(listVersionDirectories(artifactDirectory, dependency.getArtifactId()));
+            }
+        } catch (IOException ex) {
+            log.atError().withThrowable(ex).log("[{}] Failed to read {}", dependency.getGroupArtifact(), artifactDirectory);
+            return metadata.toVersionHistory(dependency).markIncomplete(ex.toString());
+        }
+        return metadata.toVersionHistory(dependency);
+    }
+
+    /**
+     * All versions are read at once, so {@code pageSize} is ignored.
+     */
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+        return lookupArtifactVersions(dependency);
+    }
+
+    /**
+     * All versions are read at once, so {@code pageSize} is ignored and every page after the first is empty.
+     */
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        if (start > 0) {
+            return ArtifactVersionHistory.of(dependency);
+        }
+        return lookupArtifactVersions(dependency);
+    }
+
+    private static List<Path> listMetadataFiles(Path artifactDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(artifactDirectory)) {
+            return files
+                .filter(file -> {
+                    final String fileName = file.getFileName().toString();
+                    return fileName.startsWith(METADATA_PREFIX) && fileName.endsWith(METADATA_SUFFIX);
+                })
+                .filter(Files::isRegularFile)
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static List<String> listVersionDirectories(Path artifactDirectory, String artifactId) throws IOException {
+        try (Stream<Path> directories = Files.list(artifactDirectory)) {
+            return directories
+                .filter(Files::isDirectory)
+                .map(directory -> directory.getFileName().toString())
+                .filter(version -> Files.isRegularFile(artifactDirectory.resolve(version).resolve("%s-%s.pom".formatted(artifactId, version))))
+                .toList();
+        }
+    }
+
+    public static final class Builder {
+        private Path root = PomModelResolver.DEFAULT_LOCAL_REPOSITORY;
+
+        private Builder() {
+        }
+
+        public LocalMvnRepository build() {
+            return new LocalMvnRepository(this);
+        }
+
+        public Builder withRoot(Path root) {
+            this.root = Objects.requireNonNull(root);
+            return this;
+        }
+    }
+}
@@ -3,82 +3,288 @@ package com.witcraft.dependencyscan;
 import lombok.extern.log4j.Log4j2;
 import org.xml.sax.SAXException;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Log4j2
 public final class Main {
+    private static final String REPOSITORY_OPTION = "--repository=";
+
+    private static final String REPOSITORY_PROPERTY = "dependencyscan.repository";
+
+    private static final String METRICS_OPTION = "--metrics";
+
+    private static final String REPORT_OPTION = "--report=";
+
+    private static final String REPORT_FILE_OPTION = "--report-file=";
+
+    private static final String SERVE_OPTION = "--serve";
+
+    private static final String POM_REPOSITORY_OPTION = "--pom-repository=";
+
     public static void main(String[] args) throws IOException, SAXException {
-        final Path path;
-        if (args.length > 0) {
-            path = Path.of(args[0]);
-        } else {
-            path = Path.of("pom.xml");
+        Path path = Path.of("pom.xml");
+        boolean reactor = false;
+        boolean walkDirectories = false;
+        boolean incremental = false;
+        boolean transitive = false;
+        String pomRepositoryUrl = MetadataMvnRepository.DEFAULT_BASE_URL;
+        String repositoryLocation = System.getProperty(REPOSITORY_PROPERTY, MvnRepository.SEARCH_LOCATION);
+        ReportFormat reportFormat = null;
+        Path reportFile = null;
+        boolean serve = false;
+        int servePort = ScanServer.DEFAULT_PORT;
+        boolean metricsToStandardOutput = false;
+        final MetricsRegistry metrics = MetricsRegistry.global();
+        for (String arg : args) {
+            switch (arg) {
+                case "--reactor" -> reactor = true;
+                case "--walk" -> {
+                    reactor = true;
+                    walkDirectories = true;
+                }
+                case "--incremental" -> incremental = true;
+                case "--transitive" -> transitive = true;
+                case "--jmx" -> metrics.addSink(new JmxMetricsSink());
+                case METRICS_OPTION -> metricsToStandardOutput = true;
+                case SERVE_OPTION -> serve = true;
+                default -> {
+                    if (arg.startsWith(REPOSITORY_OPTION)) {
+                        repositoryLocation = arg.substring(REPOSITORY_OPTION.length());
+                    } else if (arg.startsWith(POM_REPOSITORY_OPTION)) {
+                        pomRepositoryUrl = arg.substring(POM_REPOSITORY_OPTION.length());
+                    } else if (arg.startsWith(REPORT_OPTION)) {
+                        reportFormat = ReportFormat.forName(arg.substring(REPORT_OPTION.length()));
+                    } else if (arg.startsWith(REPORT_FILE_OPTION)) {
+                        reportFile = Path.of(arg.substring(REPORT_FILE_OPTION.length()));
+                    } else if (arg.startsWith(SERVE_OPTION + "=")) {
+                        serve = true;
+                        servePort = Integer.parseInt(arg.substring(SERVE_OPTION.length() + 1));
+                    } else if (arg.startsWith(METRICS_OPTION + "=")) {
+                        metrics.addSink(JsonMetricsSink.toFile(Path.of(arg.substring(METRICS_OPTION.length() + 1))));
+                    } else {
+                        path = Path.of(arg);
+                    }
+                }
+            }
+        }
+        if (metricsToStandardOutput) {
+            // Two JSON documents back to back on standard output could not be told apart by whatever reads them.
+            if (!serve && reportFormat != null && reportFile == null) {
+                throw new IllegalArgumentException("%s and %s both write to standard output; give one of them a file with %s<file> or %s<file>".formatted(
+                    METRICS_OPTION,
+                    REPORT_OPTION + reportFormat.getName(),
+                    METRICS_OPTION + "=",
+                    REPORT_FILE_OPTION
+                ));
+            }
+            metrics.addSink(JsonMetricsSink.toStream(System.out));
+        }
+        if (serve) {
+            serve(servePort, repositoryLocation);
+            return;
         }
         final Instant now = Instant.now();
-        final PomScanner pomScanner = DefaultPomScanner.builder(path).build();
-        final Map<String, DependencyInfo> dependencyMap = pomScanner.scanDependencyInfo();
-        final MvnRepository mvnRepository = DefaultMvnRepository.newInstance();
+        final ScanRequest request = new ScanRequest(path, reactor, walkDirectories, incremental, transitive, pomRepositoryUrl);
+        final ScanPipeline.Source source = request.newSource(null);
+        final long scanStartedAt = System.nanoTime();
+        final ScanPipeline.Source timedSource = moduleConsumer -> {
+            source.scan(moduleConsumer);
+            metrics.timer("run.scan").recordSince(scanStartedAt);
+        };
+
+        final RepositoryStack repositories = RepositoryStack.forLocation(repositoryLocation);
+        final boolean listDeclaringModules = (reactor && log.isDebugEnabled());
+        final ScanPipeline pipeline = ScanPipeline.builder(timedSource, repositories.getRepository())
+            .withTrackDeclaringModules(listDeclaringModules)
+            .withMaxBatchSize(repositories.getMaxBatchSize())
+            .build();
+        final AtomicInteger lookupCount = new AtomicInteger();
         final AtomicInteger newerDependencyCount = new AtomicInteger();
+        final AtomicInteger incompleteCount = new AtomicInteger();
+        final List<DependencyInfo> reportedDependencies = new ArrayList<>();
 
-        for (Map.Entry<String, DependencyInfo> entry : dependencyMap.entrySet()) {
-            final ArtifactVersionHistory versionHistory = mvnRepository.lookupArtifactVersions(entry.getValue());
-            final DependencyInfo dependency = versionHistory.getDependency();
-            final String dependencyGroupArtifact = dependency.getGroupArtifact();
-            final List<DependencyInfo> dependenciesAtSameMajorVersion = versionHistory.getUpgradeVersions();
-            final List<DependencyInfo> remainingVersions = versionHistory.getOtherVersions();
-            final int upgradeCount = dependenciesAtSameMajorVersion.size();
-            final int otherVersionCount = remainingVersions.size();
-            final String majorVersion = dependency.getMajorVersion();
-
-            if (upgradeCount > 0) {
-                newerDependencyCount.incrementAndGet();
-                final DependencyInfo latestVersion = dependenciesAtSameMajorVersion.get(0);
-                log.info(
-                    "[{}] Newer version available: {}",
-                    dependencyGroupArtifact,
-                    latestVersion
-                );
-            } else {
-                if (otherVersionCount > 0) {
-                    final boolean isSingular = (otherVersionCount == 1);
-                    final DependencyInfo latestOtherVersion = remainingVersions.get(0);
-                    log.debug(
-                        "[{}] already at latest {}.x version ({}), but there {} {} newer {}{}",
-                        dependencyGroupArtifact,
-                        majorVersion,
-                        dependency.getVersion(),
-                        (isSingular ? "is" : "are"),
-                        (isSingular ? "a" : otherVersionCount),
-                        (isSingular ? "version" : "versions"),
-                        (isSingular ?
-                            ": %s".formatted(latestOtherVersion.getVersion()) :
-                            ". The latest is: %s (published %s ago | %s)".formatted(
-                                latestOtherVersion.getVersion(),
-                                latestOtherVersion.getAgeFrom(now).toLowerCase(),
-                                latestOtherVersion.getPublishDate()
-                            )
-                        )
-                    );
-                } else {
-                    log.debug("[{}] already at latest version: \"{}\" (published {} ago | {})", dependencyGroupArtifact, dependency.getVersion(), dependency.getAgeFrom(now).toLowerCase(), dependency.getPublishDate());
+        if (reportFile != null && reportFormat == null) {
+            reportFormat = ReportFormat.JSON;
+        }
+        final Writer reportOutput = openReportOutput(reportFormat, reportFile);
+        final ReportWriter reportWriter = (reportOutput != null ? reportFormat.open(reportOutput, now, request.getProjectRoot()) : null);
+        try {
+            pipeline.consume(versionHistory -> {
+                lookupCount.incrementAndGet();
+                if (!versionHistory.isComplete()) {
+                    incompleteCount.incrementAndGet();
+                }
+                if (report(versionHistory, now)) {
+                    newerDependencyCount.incrementAndGet();
                 }
+                if (reportWriter != null) {
+                    try {
+                        reportWriter.write(versionHistory);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+                if (listDeclaringModules) {
+                    reportedDependencies.add(versionHistory.getDependency());
+                }
+            }).join();
+            if (reportWriter != null) {
+                reportWriter.close();
             }
+        } catch (CompletionException ex) {
+            throw rethrow(ex.getCause());
+        } finally {
+            metrics.timer("run.lookup").recordSince(scanStartedAt);
+            // Standard output stays open for the log and the metrics summary.
+            if (reportFile != null) {
+                reportOutput.close();
+            }
+        }
+        if (reportFile != null) {
+            log.debug("Wrote {} report to {}", reportFormat.getName(), reportFile);
+        }
+
+        if (reactor) {
+            log.info("Scanned {} modules: {} dependency declarations, {} unique", pipeline.getModuleCount(), pipeline.getDeclarationCount(), pipeline.getUniqueDependencyCount());
+        }
+        // Declarations keep arriving until the scan finishes, so the modules are only listed once it has.
+        for (DependencyInfo dependency : reportedDependencies) {
+            final List<String> moduleNames = pipeline.getDeclaringModules(dependency);
+            log.debug("[{}] Declared by {} {}: {}", dependency.getGroupArtifactVersion(), moduleNames.size(), (moduleNames.size() == 1 ? "module" : "modules"), moduleNames);
+        }
+        if (newerDependencyCount.get() == 0) {
+            log.info("No newer dependency versions found.");
+        }
+        if (incompleteCount.get() > 0) {
+            log.warn("{} of {} lookups were incomplete", incompleteCount.get(), lookupCount.get());
+        }
+        repositories.logStats();
+        metrics.report();
+    }
+
+    // Runs until a client asks the server to shut down; the repository given on the command line is only the
+    // default for requests that do not name one.
+    private static void serve(int port, String defaultRepositoryLocation) throws IOException {
+        final ScanServer server = ScanServer.builder()
+            .withPort(port)
+            .withDefaultRepositoryLocation(defaultRepositoryLocation)
+            .build();
+        server.start();
+        try {
+            server.awaitStop();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            server.stop();
+        }
+        MetricsRegistry.global().report();
+    }
 
-            if (upgradeCount > 1) {
-                log.debug("[{}] There are {} newer {}.x {}: {}", dependencyGroupArtifact, upgradeCount, majorVersion, "versions", dependenciesAtSameMajorVersion);
+    // Without a file the report goes to standard output; the log goes to standard error, so the two do not mix.
+    private static Writer openReportOutput(ReportFormat reportFormat, Path reportFile) throws IOException {
+        if (reportFile != null) {
+            final Path parent = reportFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
             }
+            return Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+        }
+        if (reportFormat != null) {
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        }
+        return null;
+    }
+
+    /**
+     * Logs what is known about newer versions of one dependency.
+     *
+     * @return whether a newer version at the same major version is available
+     */
+    private static boolean report(ArtifactVersionHistory versionHistory, Instant now) {
+        final DependencyInfo dependency = versionHistory.getDependency();
+        final String dependencyGroupArtifact = dependency.getGroupArtifact();
+        if (!versionHistory.isComplete()) {
+            log.warn("[{}] Lookup {}, results may be missing newer versions: {}", dependencyGroupArtifact, versionHistory.getStatus().name().toLowerCase(), versionHistory.getStatusReason());
+        }
+        final Collection<DependencyInfo> dependenciesAtSameMajorVersion = versionHistory.getUpgradeVersions();
+        final Collection<DependencyInfo> remainingVersions = versionHistory.getOtherVersions();
+        final int upgradeCount = dependenciesAtSameMajorVersion.size();
+        final int otherVersionCount = remainingVersions.size();
+        final String majorVersion = dependency.getMajorVersion();
+
+        if (upgradeCount > 0) {
+            final DependencyInfo latestVersion = dependenciesAtSameMajorVersion.iterator().next();
+            log.info(
+                "[{}] Newer version available: {}",
+                dependencyGroupArtifact,
+                latestVersion
+            );
+        } else {
             if (otherVersionCount > 0) {
-                log.debug("[{}] There {} {} other {}: {}", dependencyGroupArtifact, (otherVersionCount == 1 ? "is" : "are"), otherVersionCount, (otherVersionCount == 1 ? "version" : "versions"), remainingVersions);
+                final boolean isSingular = (otherVersionCount == 1);
+                final DependencyInfo latestOtherVersion = remainingVersions.iterator().next();
+                log.debug(
+                    "[{}] already at latest {}.x version ({}), but there {} {} newer {}{}",
+                    dependencyGroupArtifact,
+                    majorVersion,
+                    dependency.getVersion(),
+                    (isSingular ? "is" : "are"),
+                    (isSingular ? "a" : otherVersionCount),
+                    (isSingular ? "version" : "versions"),
+                    (isSingular ?
+                        ": %s".formatted(latestOtherVersion.getVersion()) :
+                        ". The latest is: %s (published %s ago | %s)".formatted(
+                            latestOtherVersion.getVersion(),
+                            describeAge(latestOtherVersion, now),
+                            latestOtherVersion.getPublishDate()
+                        )
+                    )
+                );
+            } else {
+                log.debug("[{}] already at latest version: \"{}\" (published {} ago | {})", dependencyGroupArtifact, dependency.getVersion(), describeAge(dependency, now), dependency.getPublishDate());
             }
         }
 
-        if (newerDependencyCount.get() == 0) {
-            log.info("No newer dependency versions found.");
+        if (upgradeCount > 1) {
+            log.debug("[{}] There are {} newer {}.x {}: {}", dependencyGroupArtifact, upgradeCount, majorVersion, "versions", dependenciesAtSameMajorVersion);
+        }
+        if (otherVersionCount > 0) {
+            log.debug("[{}] There {} {} other {}: {}", dependencyGroupArtifact, (otherVersionCount == 1 ? "is" : "are"), otherVersionCount, (otherVersionCount == 1 ? "version" : "versions"), remainingVersions);
         }
+        return (upgradeCount > 0);
+    }
+
+    private static RuntimeException rethrow(Throwable failure) throws IOException, SAXException {
+        if (failure instanceof UncheckedIOException uncheckedIOException) {
+            throw uncheckedIOException.getCause();
+        } else if (failure instanceof IOException ioException) {
+            throw ioException;
+        } else if (failure instanceof SAXException saxException) {
+            throw saxException;
+        } else if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (failure instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(failure);
+    }
+
+    private static String describeAge(DependencyInfo dependency, Instant now) {
+        return Optional.ofNullable(dependency.getAgeFrom(now))
+            .map(String::toLowerCase)
+            .orElse("an unknown time");
     }
 }
@@ -0,0 +1,103 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathNodes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * Versions collected from one or more {@code maven-metadata.xml} documents of a single artifact.
+ */
+@Log4j2
+final class MavenMetadata {
+    private static final XPathExecutor X_PATH_EXECUTOR = XPathExecutor.newInstance();
+
+    private static final CompiledXPath XPATH_VERSIONS = X_PATH_EXECUTOR.compile("/metadata/versioning/versions/version");
+
+    private static final CompiledXPath XPATH_LAST_UPDATED = X_PATH_EXECUTOR.compile("/metadata/versioning/lastUpdated");
+
+    private static final DateTimeFormatter LAST_UPDATED_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final Set<String> versions = new LinkedHashSet<>();
+
+    private Instant lastUpdated;
+
+    MavenMetadata merge(Document document) {
+        final XPathNodes versionNodes = XPATH_VERSIONS.nodes(document);
+        if (versionNodes != null) {
+            for (Node versionNode : versionNodes) {
+                Optional.ofNullable(versionNode.getTextContent())
+                    .map(String::trim)
+                    .filter(not(String::isBlank))
+                    .ifPresent(versions::add);
+            }
+        }
+        Optional.ofNullable(XPATH_LAST_UPDATED.text(document))
+            .filter(not(String::isBlank))
+            .map(MavenMetadata::parseLastUpdated)
+            .filter(updated -> lastUpdated == null || updated.isAfter(lastUpdated))
+            .ifPresent(updated -> lastUpdated = updated);
+        return this;
+    }
+
+    MavenMetadata mergeVersions(Collection<String> versions) {
+        this.versions.addAll(versions);
+        return this;
+    }
+
+    boolean isEmpty() {
+        return versions.isEmpty();
+    }
+
+    /**
+     * @return the versions newer than the dependency's version, newest first, followed by the dependency's version
+     * itself if it is listed as written
+     */
+    ArtifactVersionHistory toVersionHistory(DependencyInfo dependency) {
+        final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+        final List<String> newestFirst = versions.stream()
+            .sorted(Comparator.comparing(Version::parse).reversed())
+            .toList();
+        for (int i = 0; i < newestFirst.size(); i++) {
+            final String version = newestFirst.get(i);
+            // Compared as versions, so that the walk also stops when the current version is missing from the metadata
+            // or written differently there, such as 1.0 for 1.0.0.
+            final int order = Version.parse(version).compareTo(dependency.getParsedVersion());
+            if (order < 0 || (order == 0 && !Objects.equals(dependency.getVersion(), version))) {
+                break;
+            }
+            // Metadata only records when it was last updated, which is the publish date of the newest version.
+            versionHistory.addVersion(
+                dependency.toVersion(version, (i == 0 ? lastUpdated : null))
+            );
+            if (order == 0) {
+                break;
+            }
+        }
+        return versionHistory;
+    }
+
+    private static Instant parseLastUpdated(String lastUpdated) {
+        try {
+            return LocalDateTime.parse(lastUpdated, LAST_UPDATED_FORMAT).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException ex) {
+            log.atWarn().withThrowable(ex).log("Unrecognized lastUpdated value \"{}\"", lastUpdated);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static com.witcraft.dependencyscan.MvnRepository.getArtifactMetadataUrl;
+
+/**
+ * Looks up versions from the {@code maven-metadata.xml} files of a repository in the standard Maven layout, such as
+ * Maven Central or a Nexus/Artifactory mirror of it.
+ */
+@Log4j2
+public final class MetadataMvnRepository implements MvnRepository {
+    public static final String DEFAULT_BASE_URL = "https://repo1.maven.org/maven2/";
+
+    private final String baseUrl;
+
+    private final HttpClient httpClient;
+
+    private final Duration requestTimeout;
+
+    @Getter
+    private final RequestScheduler requestScheduler;
+
+    @Getter
+    private final ConnectionStats connectionStats;
+
+    private final Timer lookupTimer;
+
+    private final Counter bytesCounter;
+
+    private MetadataMvnRepository(Builder builder) {
+        this.baseUrl = (builder.baseUrl.endsWith("/") ? builder.baseUrl : builder.baseUrl + "/");
+        this.httpClient = Optional.ofNullable(builder.httpClient).orElseGet(builder::buildHttpClient);
+        this.requestTimeout = builder.requestTimeout;
+        this.requestScheduler = Optional.ofNullable(builder.requestScheduler)
+            .orElseGet(() -> RequestScheduler.builder().withMetrics(builder.metrics).build());
+        this.connectionStats = new ConnectionStats();
+        this.lookupTimer = builder.metrics.timer("metadata.lookup");
+        this.bytesCounter = builder.metrics.counter("http.bytes");
+    }
+
+    public static MetadataMvnRepository newInstance() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+        final long startedAt = System.nanoTime();
+        try {
+            return fetchVersionHistory(dependency);
+        } finally {
+            lookupTimer.recordSince(startedAt);
+        }
+    }
+
+    private ArtifactVersionHistory fetchVersionHistory(DependencyInfo dependency) {
+        final String url = getArtifactMetadataUrl(baseUrl, dependency);
+        final HttpResponse<byte[]> response;
+        try {
+            response = fetch(url).join();
+        } catch (CompletionException | CancellationException ex) {
+            final Throwable cause = Optional.ofNullable(ex.getCause()).orElse(ex);
+            log.atError().log("[{}] Failed to fetch artifact metadata: {}", dependency.getGroupArtifact(), cause.getMessage());
+            return ArtifactVersionHistory.of(dependency).markIncomplete(cause.toString());
+        }
+        if (response.statusCode() == 404) {
+            log.atDebug().log("[{}] No metadata at {}", dependency.getGroupArtifact(), url);
+            return ArtifactVersionHistory.of(dependency);
+        }
+        final Document document = (response.statusCode() == 200 ? XmlUtil.loadXmlDocument(new ByteArrayInputStream(response.body())) : null);
+        if (document == null) {
+            log.atError().log("[{}] Failed to fetch artifact metadata: HTTP {}", dependency.getGroupArtifact(), response.statusCode());
+            return ArtifactVersionHistory.of(dependency).markIncomplete("HTTP %d from %s".formatted(response.statusCode(), url));
+        }
+        return new MavenMetadata()
+            .merge(document)
+            .toVersionHistory(dependency);
+    }
+
+    /**
+     * Metadata lists every version in a single document, so {@code pageSize} is ignored.
+     */
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+        return lookupArtifactVersions(dependency);
+    }
+
+    /**
+     * Metadata lists every version in a single document, so {@code pageSize} is ignored and every page after the
+     * first is empty.
+     */
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        if (start > 0) {
+            return ArtifactVersionHistory.of(dependency);
+        }
+        return lookupArtifactVersions(dependency);
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> fetch(String url) {
+        final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(url))
+            .GET();
+        if (requestTimeout != null) {
+            requestBuilder.timeout(requestTimeout);
+        }
+        connectionStats.recordRequest();
+        return requestScheduler.send(httpClient, requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(httpResponse -> {
+                connectionStats.recordResponse(httpResponse);
+                Optional.ofNullable(httpResponse.body()).ifPresent(body -> bytesCounter.add(body.length));
+                return httpResponse;
+            });
+    }
+
+    public static final class Builder {
+        private String baseUrl = DEFAULT_BASE_URL;
+
+        private HttpClient httpClient;
+
+        private Duration connectTimeout = DefaultMvnRepository.DEFAULT_CONNECT_TIMEOUT;
+
+        private Duration requestTimeout = DefaultMvnRepository.DEFAULT_REQUEST_TIMEOUT;
+
+        private Executor executor;
+
+        private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+        private RequestScheduler requestScheduler;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder() {
+        }
+
+        public MetadataMvnRepository build() {
+            return new MetadataMvnRepository(this);
+        }
+
+        public Builder withBaseUrl(String baseUrl) {
+            this.baseUrl = Objects.requireNonNull(baseUrl);
+            return this;
+        }
+
+        public Builder withHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        public Builder withConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder withRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder withExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder withHttpVersion(HttpClient.Version httpVersion) {
+            this.httpVersion = Objects.requireNonNull(httpVersion);
+            return this;
+        }
+
+        public Builder withRequestScheduler(RequestScheduler requestScheduler) {
+            this.requestScheduler = requestScheduler;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        private HttpClient buildHttpClient() {
+            final HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(httpVersion)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+            if (connectTimeout != null) {
+                clientBuilder.connectTimeout(connectTimeout);
+            }
+            if (executor != null) {
+                clientBuilder.executor(executor);
+            }
+            return clientBuilder.build();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.witcraft.dependencyscan;
+
+/**
+ * A named measurement held by a {@link MetricsRegistry}.
+ */
+public sealed interface Metric permits Counter, Gauge, Histogram, Timer {
+    String getName();
+}
@@ -0,0 +1,104 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * Named counters, timers, histograms and gauges, created on first use and shared by name.
+ * <p>
+ * Components take a registry from their builder and default to {@link #global()}, which is also what the static XML
+ * and XPath helpers record into. Callers should look a metric up once and keep it, rather than on every event.
+ */
+@Log4j2
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    private final List<MetricsSink> sinks = new CopyOnWriteArrayList<>();
+
+    public MetricsRegistry() {
+    }
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name) {
+        return register(name, Counter.class, Counter::new);
+    }
+
+    public Timer timer(String name) {
+        return register(name, Timer.class, Timer::new);
+    }
+
+    public Histogram histogram(String name) {
+        return register(name, Histogram.class, Histogram::new);
+    }
+
+    /**
+     * Registers a gauge, or returns the one already registered under {@code name}, keeping its original supplier.
+     */
+    public Gauge gauge(String name, DoubleSupplier value) {
+        return register(name, Gauge.class, gaugeName -> new Gauge(gaugeName, value));
+    }
+
+    /**
+     * Adds a sink, which is told about every metric registered so far and from now on.
+     */
+    public MetricsRegistry addSink(MetricsSink sink) {
+        sinks.add(Objects.requireNonNull(sink));
+        metrics.values().forEach(sink::metricRegistered);
+        return this;
+    }
+
+    /**
+     * Hands the registry to every sink for its end-of-run summary.
+     */
+    public void report() {
+        for (MetricsSink sink : sinks) {
+            try {
+                sink.report(this);
+            } catch (RuntimeException ex) {
+                log.atError().withThrowable(ex).log("Metrics sink {} failed", sink.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * @return every metric, ordered by name
+     */
+    public Collection<Metric> getMetrics() {
+        return List.copyOf(metrics.values());
+    }
+
+    private <M extends Metric> M register(String name, Class<M> type, Function<String, M> factory) {
+        Objects.requireNonNull(name);
+        final Metric existing = metrics.get(name);
+        if (existing != null) {
+            return cast(existing, type);
+        }
+        final M created = factory.apply(name);
+        final Metric registered = metrics.putIfAbsent(name, created);
+        if (registered != null) {
+            return cast(registered, type);
+        }
+        sinks.forEach(sink -> sink.metricRegistered(created));
+        return created;
+    }
+
+    private static <M extends Metric> M cast(Metric metric, Class<M> type) {
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric %s is a %s, not a %s".formatted(metric.getName(), metric.getClass().getSimpleName(), type.getSimpleName()));
+        }
+        return type.cast(metric);
+    }
+}
@@ -0,0 +1,13 @@
+package com.witcraft.dependencyscan;
+
+/**
+ * Receives the metrics of a {@link MetricsRegistry}: each metric as it is registered, for sinks that expose live
+ * values, and the whole registry when a run is reported, for sinks that write a summary.
+ */
+public interface MetricsSink {
+    default void metricRegistered(Metric metric) {
+    }
+
+    default void report(MetricsRegistry registry) {
+    }
+}
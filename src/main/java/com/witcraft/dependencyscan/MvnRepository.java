@@ -1,15 +1,75 @@
 package com.witcraft.dependencyscan;
 
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public interface MvnRepository {
+    int DEFAULT_MAX_CONCURRENT_LOOKUPS = 8;
+
+    String SEARCH_LOCATION = "search";
+
     static String getArtifactVersionsUrl(DependencyInfo dependency, int pageSize, int start) {
+        return getArtifactVersionsUrl(DefaultMvnRepository.DEFAULT_SEARCH_URL, dependency, pageSize, start);
+    }
+
+    static String getArtifactVersionsUrl(String searchUrl, DependencyInfo dependency, int pageSize, int start) {
         final String escapedGroupId = URLEncoder.encode(dependency.getGroupId(), StandardCharsets.UTF_8);
         final String escapedArtifactId = URLEncoder.encode(dependency.getArtifactId(), StandardCharsets.UTF_8);
         final String startCondition = (start > 0 ? "&start=%d".formatted(start) : "");
 
-        return "https://search.maven.org/solrsearch/select?q=g:%s+AND+a:%s&core=gav&rows=%d%s&wt=xml".formatted(escapedGroupId, escapedArtifactId, pageSize, startCondition);
+        return "%s?q=g:%s+AND+a:%s&core=gav&rows=%d%s&wt=xml".formatted(searchUrl, escapedGroupId, escapedArtifactId, pageSize, startCondition);
+    }
+
+    /**
+     * Builds a single search query matching every version of each of the given artifacts, e.g.
+     * {@code q=(g:X+AND+a:Y)+OR+(g:Z+AND+a:W)}.
+     */
+    static String getArtifactVersionsUrl(String searchUrl, Collection<DependencyInfo> dependencies, int rows) {
+        final String query = dependencies.stream()
+            .map(dependency -> "(g:%s+AND+a:%s)".formatted(
+                URLEncoder.encode(dependency.getGroupId(), StandardCharsets.UTF_8),
+                URLEncoder.encode(dependency.getArtifactId(), StandardCharsets.UTF_8)
+            ))
+            .collect(Collectors.joining("+OR+"));
+
+        return "%s?q=%s&core=gav&rows=%d&wt=xml".formatted(searchUrl, query, rows);
+    }
+
+    static String getArtifactMetadataUrl(DependencyInfo dependency) {
+        return getArtifactMetadataUrl(MetadataMvnRepository.DEFAULT_BASE_URL, dependency);
+    }
+
+    static String getArtifactMetadataUrl(String baseUrl, DependencyInfo dependency) {
+        final String groupPath = dependency.getGroupId().replace('.', '/');
+        final String escapedArtifactId = URLEncoder.encode(dependency.getArtifactId(), StandardCharsets.UTF_8);
+        final String separator = (baseUrl.endsWith("/") ? "" : "/");
+
+        return "%s%s%s/%s/maven-metadata.xml".formatted(baseUrl, separator, groupPath, escapedArtifactId);
+    }
+
+    /**
+     * Creates the repository described by {@code location}:
+     * <ul>
+     *     <li>{@code search} (or nothing): the search.maven.org search API</li>
+     *     <li>an {@code http://} or {@code https://} URL: the {@code maven-metadata.xml} files of a repository at that
+     *     base URL, such as a Nexus or Artifactory mirror</li>
+     *     <li>a {@code file:} URI or a path: a repository on the local filesystem</li>
+     * </ul>
+     */
+    static MvnRepository forLocation(String location) {
+        if (location == null || location.isBlank() || location.equals(SEARCH_LOCATION)) {
+            return DefaultMvnRepository.newInstance();
+        }
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            return MetadataMvnRepository.builder().withBaseUrl(location).build();
+        }
+        final Path root = (location.startsWith("file:") ? Path.of(URI.create(location)) : Path.of(location));
+        return LocalMvnRepository.builder().withRoot(root).build();
     }
 
     ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency);
@@ -17,4 +77,12 @@ public interface MvnRepository {
     ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize);
 
     ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start);
+
+    default List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies) {
+        return lookupAllArtifactVersions(dependencies, DEFAULT_MAX_CONCURRENT_LOOKUPS);
+    }
+
+    default List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        return ConcurrentLookup.lookupAll(this, dependencies, maxConcurrentLookups);
+    }
 }
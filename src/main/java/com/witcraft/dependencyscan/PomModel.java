@@ -0,0 +1,37 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public final class PomModel {
+    private final Path pomFile;
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final Map<String, String> properties;
+
+    private final List<DependencyDeclaration> managedDependencies;
+
+    /**
+     * The declared dependencies, including those inherited from the parent, uninterpolated.
+     */
+    private final List<DependencyDeclaration> dependencies;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final PomModel parent;
+
+    public String getCoordinates() {
+        return "%s:%s:%s".formatted(groupId, artifactId, version);
+    }
+}
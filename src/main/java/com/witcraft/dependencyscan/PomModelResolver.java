@@ -0,0 +1,566 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathNodes;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static java.util.function.Predicate.not;
+
+@Log4j2
+public final class PomModelResolver {
+    public static final Path DEFAULT_LOCAL_REPOSITORY = Path.of(System.getProperty("user.home"), ".m2", "repository");
+
+    public static final Path DEFAULT_POM_CACHE_DIRECTORY = Path.of(System.getProperty("user.home"), ".dependency-scan", "poms");
+
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+
+    private static final Object WAIT_LOCK = new Object();
+
+    // Coordinates come from POMs that are not ours to trust, so none may smuggle a path separator or a ".." in.
+    private static final Pattern COORDINATE = Pattern.compile("(?!\\.{1,2}$)[^/\\\\:\\s]+");
+
+    private static final String DEFAULT_RELATIVE_PATH = "../pom.xml";
+
+    private static final XPathExecutor X_PATH_EXECUTOR = XPathExecutor.newInstance();
+
+    private static final CompiledXPath XPATH_PARENT = X_PATH_EXECUTOR.compile("/project/parent");
+
+    private static final CompiledXPath XPATH_RELATIVE_PATH = X_PATH_EXECUTOR.compile("relativePath");
+
+    private static final CompiledXPath XPATH_PROJECT_GROUP_ID = X_PATH_EXECUTOR.compile("/project/groupId");
+
+    private static final CompiledXPath XPATH_PROJECT_ARTIFACT_ID = X_PATH_EXECUTOR.compile("/project/artifactId");
+
+    private static final CompiledXPath XPATH_PROJECT_VERSION = X_PATH_EXECUTOR.compile("/project/version");
+
+    private static final CompiledXPath XPATH_PROPERTIES = X_PATH_EXECUTOR.compile("/project/properties/*");
+
+    private static final CompiledXPath XPATH_MANAGED_DEPENDENCIES = X_PATH_EXECUTOR.compile("/project/dependencyManagement/dependencies/dependency");
+
+    private static final CompiledXPath XPATH_DEPENDENCIES = X_PATH_EXECUTOR.compile("/project/dependencies/dependency");
+
+    private static final CompiledXPath XPATH_GROUP_ID = X_PATH_EXECUTOR.compile("groupId");
+
+    private static final CompiledXPath XPATH_ARTIFACT_ID = X_PATH_EXECUTOR.compile("artifactId");
+
+    private static final CompiledXPath XPATH_VERSION = X_PATH_EXECUTOR.compile("version");
+
+    private static final CompiledXPath XPATH_SCOPE = X_PATH_EXECUTOR.compile("scope");
+
+    private static final CompiledXPath XPATH_TYPE = X_PATH_EXECUTOR.compile("type");
+
+    private static final CompiledXPath XPATH_OPTIONAL = X_PATH_EXECUTOR.compile("optional");
+
+    private static final CompiledXPath XPATH_EXCLUSIONS = X_PATH_EXECUTOR.compile("exclusions/exclusion");
+
+    private final Path localRepository;
+
+    private final String remoteBaseUrl;
+
+    private final Path pomCacheDirectory;
+
+    private final HttpClient httpClient;
+
+    private final RequestScheduler requestScheduler;
+
+    private final Duration requestTimeout;
+
+    private final Timer fetchTimer;
+
+    private final Counter fetchBytesCounter;
+
+    private final Map<Path, CompletableFuture<PomModel>> modelsByFile;
+
+    private final Map<String, CompletableFuture<PomModel>> modelsByCoordinates;
+
+    private final Map<String, CompletableFuture<Map<String, DependencyInfo>>> importedManagement;
+
+    private final LongAdder parseCount = new LongAdder();
+
+    private PomModelResolver(Builder builder) {
+        this.localRepository = Objects.requireNonNull(builder.localRepository).toAbsolutePath().normalize();
+        this.remoteBaseUrl = Optional.ofNullable(builder.remoteBaseUrl)
+            .map(baseUrl -> (baseUrl.endsWith("/") ? baseUrl : baseUrl + "/"))
+            .orElse(null);
+        this.pomCacheDirectory = Objects.requireNonNull(builder.pomCacheDirectory).toAbsolutePath().normalize();
+        this.httpClient = (remoteBaseUrl == null ? null : Optional.ofNullable(builder.httpClient).orElseGet(PomModelResolver::buildHttpClient));
+        this.requestScheduler = (remoteBaseUrl == null ? null : Optional.ofNullable(builder.requestScheduler)
+            .orElseGet(() -> RequestScheduler.builder().withMetrics(builder.metrics).build()));
+        this.requestTimeout = builder.requestTimeout;
+        this.fetchTimer = builder.metrics.timer("pom.fetch");
+        this.fetchBytesCounter = builder.metrics.counter("http.bytes");
+        this.modelsByFile = new ConcurrentHashMap<>();
+        this.modelsByCoordinates = new ConcurrentHashMap<>();
+        this.importedManagement = new ConcurrentHashMap<>();
+    }
+
+    public static PomModelResolver newInstance() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public PomModel resolve(Path pomFile) {
+        return resolve(pomFile, null, new Chain());
+    }
+
+    public PomModel resolve(Path pomFile, Document document) {
+        return resolve(pomFile, document, new Chain());
+    }
+
+    public PomModel resolve(String groupId, String artifactId, String version) {
+        return resolve(groupId, artifactId, version, new Chain());
+    }
+
+    public Map<String, DependencyInfo> resolveDependencyManagement(PomModel model) {
+        return resolveDependencyManagement(model, new Chain());
+    }
+
+    /**
+     * @return the POM files {@code model} is built from: its own, its parents', and those of every BOM its dependency
+     * management imports, directly or through other BOMs
+     */
+    public Set<Path> getInputFiles(PomModel model) {
+        final Set<Path> files = new LinkedHashSet<>();
+        addInputFiles(model, files, new HashSet<>());
+        return files;
+    }
+
+    public long getParseCount() {
+        return parseCount.sum();
+    }
+
+    private PomModel resolve(Path pomFile, Document document, Chain chain) {
+        final Path normalizedFile = pomFile.toAbsolutePath().normalize();
+        return computeOnce(modelsByFile, normalizedFile, normalizedFile.toString(), chain, () -> {
+            final PomModel model = load(normalizedFile, document, chain);
+            if (model != null) {
+                modelsByCoordinates.putIfAbsent(model.getCoordinates(), CompletableFuture.completedFuture(model));
+            }
+            return model;
+        });
+    }
+
+    private PomModel resolve(String groupId, String artifactId, String version, Chain chain) {
+        final String coordinates = "%s:%s:%s".formatted(groupId, artifactId, version);
+        return computeOnce(modelsByCoordinates, coordinates, coordinates, chain, () -> {
+            if (!isValidCoordinate(groupId) || !isValidCoordinate(artifactId) || !isValidCoordinate(version)) {
+                log.atWarn().log("[{}] Not a valid groupId:artifactId:version", coordinates);
+                return null;
+            }
+            final String repositoryPath = "%s/%s/%s/%s-%s.pom".formatted(groupId.replace('.', '/'), artifactId, version, artifactId, version);
+            final Path pomFile = localRepository.resolve(repositoryPath).normalize();
+            final Path cachedFile = pomCacheDirectory.resolve(repositoryPath).normalize();
+            if (!pomFile.startsWith(localRepository) || !cachedFile.startsWith(pomCacheDirectory)) {
+                log.atWarn().log("[{}] Resolves to a path outside the repository", coordinates);
+                return null;
+            }
+            if (Files.isRegularFile(pomFile)) {
+                return resolve(pomFile, null, chain);
+            }
+            if (Files.isRegularFile(cachedFile)) {
+                return resolve(cachedFile, null, chain);
+            }
+            if (remoteBaseUrl == null) {
+                log.atWarn().log("[{}] POM not found in {}", coordinates, localRepository);
+                return null;
+            }
+            final byte[] content = fetch(coordinates, remoteBaseUrl + repositoryPath);
+            if (content == null) {
+                return null;
+            }
+            final Document document = XmlUtil.loadXmlDocument(new ByteArrayInputStream(content));
+            if (document == null) {
+                log.atWarn().log("[{}] Unable to parse the POM from {}", coordinates, remoteBaseUrl);
+                return null;
+            }
+            // Released POMs never change, so they are kept for later runs; snapshots are only kept for this one.
+            if (!version.endsWith(SNAPSHOT_SUFFIX)) {
+                store(cachedFile, content);
+            }
+            return resolve(cachedFile, document, chain);
+        });
+    }
+
+    private byte[] fetch(String coordinates, String url) {
+        final HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(url))
+            .GET();
+        if (requestTimeout != null) {
+            requestBuilder.timeout(requestTimeout);
+        }
+        final long startedAt = System.nanoTime();
+        final HttpResponse<byte[]> response;
+        try {
+            response = requestScheduler.send(httpClient, requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray()).join();
+        } catch (CompletionException | CancellationException ex) {
+            final Throwable cause = Optional.ofNullable(ex.getCause()).orElse(ex);
+            log.atWarn().log("[{}] Failed to fetch POM: {}", coordinates, cause.toString());
+            return null;
+        } finally {
+            fetchTimer.recordSince(startedAt);
+        }
+        if (response.statusCode() != 200) {
+            log.atWarn().log("[{}] Failed to fetch POM: HTTP {} from {}", coordinates, response.statusCode(), url);
+            return null;
+        }
+        fetchBytesCounter.add(response.body().length);
+        return response.body();
+    }
+
+    /**
+     * @return whether {@code value} can be a groupId, artifactId or version without naming a path outside the
+     * repository it is looked up in
+     */
+    static boolean isValidCoordinate(String value) {
+        return value != null && COORDINATE.matcher(value).matches();
+    }
+
+    private static void store(Path file, byte[] content) {
+        try {
+            Files.createDirectories(file.getParent());
+            final Path tempFile = Files.createTempFile(file.getParent(), ".", ".tmp");
+            Files.write(tempFile, content);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            log.atWarn().log("Failed to cache POM {}: {}", file, ex.toString());
+        }
+    }
+
+    private Map<String, DependencyInfo> resolveDependencyManagement(PomModel model, Chain chain) {
+        final PropertyInterpolator interpolator = PropertyInterpolator.forModel(model);
+        final Map<String, DependencyInfo> managedDependencies = new LinkedHashMap<>();
+        final List<DependencyDeclaration> imports = new ArrayList<>();
+
+        for (DependencyDeclaration declaration : model.getManagedDependencies()) {
+            final String groupId = interpolator.interpolate(declaration.getGroupId());
+            final String artifactId = interpolator.interpolate(declaration.getArtifactId());
+            final String version = interpolator.interpolate(declaration.getVersion());
+            final String scope = interpolator.interpolate(declaration.getScope());
+            if ("import".equals(scope) && "pom".equals(declaration.getType())) {
+                imports.add(new DependencyDeclaration(groupId, artifactId, version, scope, declaration.getType()));
+                continue;
+            }
+            managedDependencies.put(
+                "%s:%s".formatted(groupId, artifactId),
+                DependencyInfo.builder()
+                    .withGroupId(groupId)
+                    .withArtifactId(artifactId)
+                    .withVersion(version)
+                    .withScope(scope)
+                    .build()
+            );
+        }
+
+        // Explicitly managed entries win over imported ones, and earlier imports win over later ones.
+        for (DependencyDeclaration declaration : imports) {
+            resolveImportedManagement(declaration, chain).forEach(managedDependencies::putIfAbsent);
+        }
+        return managedDependencies;
+    }
+
+    private Map<String, DependencyInfo> resolveImportedManagement(DependencyDeclaration declaration, Chain chain) {
+        final String coordinates = "%s:%s:%s".formatted(declaration.getGroupId(), declaration.getArtifactId(), declaration.getVersion());
+        final String chainKey = "import:" + coordinates;
+        final Map<String, DependencyInfo> managedDependencies = computeOnce(importedManagement, coordinates, chainKey, chain, () -> {
+            final PomModel bom = resolve(declaration.getGroupId(), declaration.getArtifactId(), declaration.getVersion(), chain);
+            if (bom == null) {
+                return Map.of();
+            }
+            return Collections.unmodifiableMap(resolveDependencyManagement(bom, chain));
+        });
+        return Optional.ofNullable(managedDependencies).orElse(Map.of());
+    }
+
+    private void addInputFiles(PomModel model, Set<Path> files, Set<String> visitedImports) {
+        Optional.ofNullable(model.getPomFile())
+            .map(pomFile -> pomFile.toAbsolutePath().normalize())
+            .ifPresent(files::add);
+        Optional.ofNullable(model.getParent()).ifPresent(parent -> addInputFiles(parent, files, visitedImports));
+        final PropertyInterpolator interpolator = PropertyInterpolator.forModel(model);
+        for (DependencyDeclaration declaration : model.getManagedDependencies()) {
+            if (!"import".equals(interpolator.interpolate(declaration.getScope())) || !"pom".equals(declaration.getType())) {
+                continue;
+            }
+            final String groupId = interpolator.interpolate(declaration.getGroupId());
+            final String artifactId = interpolator.interpolate(declaration.getArtifactId());
+            final String version = interpolator.interpolate(declaration.getVersion());
+            if (visitedImports.add("%s:%s:%s".formatted(groupId, artifactId, version))) {
+                Optional.ofNullable(resolve(groupId, artifactId, version))
+                    .ifPresent(bom -> addInputFiles(bom, files, visitedImports));
+            }
+        }
+    }
+
+    private PomModel load(Path pomFile, Document document, Chain chain) {
+        final Document pomDocument = Optional.ofNullable(document).orElseGet(() -> XmlUtil.loadXmlDocument(pomFile));
+        if (pomDocument == null) {
+            return null;
+        }
+        parseCount.increment();
+
+        final Node parentNode = XPATH_PARENT.node(pomDocument);
+        final PomModel parent = (parentNode == null ? null : resolveParent(pomFile, parentNode, chain));
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        final Map<String, DependencyDeclaration> managedDependencies = new LinkedHashMap<>();
+        final Map<String, DependencyDeclaration> dependencies = new LinkedHashMap<>();
+        if (parent != null) {
+            properties.putAll(parent.getProperties());
+            parent.getManagedDependencies().forEach(declaration -> managedDependencies.put(declaration.getArtifactPath(), declaration));
+            parent.getDependencies().forEach(declaration -> dependencies.put(declaration.getArtifactPath(), declaration));
+        }
+
+        final XPathNodes propertyNodes = XPATH_PROPERTIES.nodes(pomDocument);
+        if (propertyNodes != null) {
+            for (Node propertyNode : propertyNodes) {
+                properties.put(propertyNode.getNodeName(), Optional.ofNullable(propertyNode.getTextContent()).map(String::trim).orElse(""));
+            }
+        }
+
+        readDeclarations(XPATH_MANAGED_DEPENDENCIES.nodes(pomDocument), managedDependencies);
+        readDeclarations(XPATH_DEPENDENCIES.nodes(pomDocument), dependencies);
+
+        final String parentGroupId = (parentNode == null ? null : XPATH_GROUP_ID.text(parentNode));
+        final String parentVersion = (parentNode == null ? null : XPATH_VERSION.text(parentNode));
+        return new PomModel(
+            pomFile,
+            Optional.ofNullable(XPATH_PROJECT_GROUP_ID.text(pomDocument)).filter(not(String::isBlank)).orElse(parentGroupId),
+            XPATH_PROJECT_ARTIFACT_ID.text(pomDocument),
+            Optional.ofNullable(XPATH_PROJECT_VERSION.text(pomDocument)).filter(not(String::isBlank)).orElse(parentVersion),
+            Collections.unmodifiableMap(properties),
+            List.copyOf(managedDependencies.values()),
+            List.copyOf(dependencies.values()),
+            parent
+        );
+    }
+
+    private static void readDeclarations(XPathNodes nodes, Map<String, DependencyDeclaration> declarations) {
+        if (nodes == null) {
+            return;
+        }
+        for (Node node : nodes) {
+            if (node instanceof Element element) {
+                final Set<String> exclusions = new LinkedHashSet<>();
+                final XPathNodes exclusionNodes = XPATH_EXCLUSIONS.nodes(element);
+                if (exclusionNodes != null) {
+                    for (Node exclusionNode : exclusionNodes) {
+                        exclusions.add("%s:%s".formatted(
+                            Optional.ofNullable(XPATH_GROUP_ID.text(exclusionNode)).filter(not(String::isBlank)).orElse("*"),
+                            Optional.ofNullable(XPATH_ARTIFACT_ID.text(exclusionNode)).filter(not(String::isBlank)).orElse("*")
+                        ));
+                    }
+                }
+                final DependencyDeclaration declaration = new DependencyDeclaration(
+                    XPATH_GROUP_ID.text(element),
+                    XPATH_ARTIFACT_ID.text(element),
+                    XPATH_VERSION.text(element),
+                    Optional.ofNullable(XPATH_SCOPE.text(element)).filter(not(String::isBlank)).orElse("compile"),
+                    Optional.ofNullable(XPATH_TYPE.text(element)).filter(not(String::isBlank)).orElse("jar"),
+                    "true".equals(Optional.ofNullable(XPATH_OPTIONAL.text(element)).map(String::trim).orElse(null)),
+                    exclusions
+                );
+                declarations.put(declaration.getArtifactPath(), declaration);
+            }
+        }
+    }
+
+    private PomModel resolveParent(Path pomFile, Node parentNode, Chain chain) {
+        final String groupId = XPATH_GROUP_ID.text(parentNode);
+        final String artifactId = XPATH_ARTIFACT_ID.text(parentNode);
+        final String version = XPATH_VERSION.text(parentNode);
+
+        final Node relativePathNode = XPATH_RELATIVE_PATH.node(parentNode);
+        final String relativePath = (relativePathNode == null ? DEFAULT_RELATIVE_PATH : relativePathNode.getTextContent().trim());
+        final Path directory = pomFile.getParent();
+        if (!relativePath.isEmpty() && directory != null) {
+            final Path candidate = directory.resolve(relativePath).normalize();
+            final Path candidateFile = (Files.isDirectory(candidate) ? candidate.resolve(ReactorScanner.POM_FILE_NAME) : candidate);
+            if (Files.isRegularFile(candidateFile)) {
+                final PomModel candidateModel = resolve(candidateFile, null, chain);
+                if (candidateModel != null
+                    && Objects.equals(candidateModel.getGroupId(), groupId)
+                    && Objects.equals(candidateModel.getArtifactId(), artifactId)
+                    && (version == null || version.isBlank() || Objects.equals(candidateModel.getVersion(), version))) {
+                    return candidateModel;
+                }
+            }
+        }
+        return resolve(groupId, artifactId, version, chain);
+    }
+
+    private static <K, V> V computeOnce(Map<K, CompletableFuture<V>> cache, K key, String chainKey, Chain chain, Supplier<V> loader) {
+        if (chain.keys.contains(chainKey)) {
+            log.atError().log("Cycle detected while resolving {}: {}", chainKey, chain.keys);
+            return null;
+        }
+        final OwnedFuture<V> future = new OwnedFuture<>(chain);
+        final CompletableFuture<V> existing = cache.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing, chainKey, chain);
+        }
+        chain.keys.add(chainKey);
+        try {
+            final V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            chain.keys.remove(chainKey);
+        }
+    }
+
+    // Another thread is loading the value. When that thread is itself waiting, directly or through others, for
+    // something this chain is loading, neither would ever finish: a parent or import cycle reached from both ends at
+    // once. The cycle is reported here instead of joining.
+    private static <V> V await(CompletableFuture<V> existing, String chainKey, Chain chain) {
+        if (existing.isDone() || !(existing instanceof OwnedFuture<V> owned)) {
+            return existing.join();
+        }
+        synchronized (WAIT_LOCK) {
+            for (Chain other = owned.owner; other != null; other = other.waitingFor) {
+                if (other == chain) {
+                    log.atError().log("Cycle detected while resolving {}: {}", chainKey, chain.keys);
+                    return null;
+                }
+            }
+            chain.waitingFor = owned.owner;
+        }
+        try {
+            return existing.join();
+        } finally {
+            synchronized (WAIT_LOCK) {
+                chain.waitingFor = null;
+            }
+        }
+    }
+
+    private static HttpClient buildHttpClient() {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(DefaultMvnRepository.DEFAULT_CONNECT_TIMEOUT)
+            .build();
+    }
+
+    /**
+     * What one call is in the middle of loading, and which other call it is waiting for, if any. Each public call
+     * starts its own chain, which only the calling thread uses.
+     */
+    private static final class Chain {
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        // Guarded by WAIT_LOCK.
+        private Chain waitingFor;
+    }
+
+    private static final class OwnedFuture<V> extends CompletableFuture<V> {
+        private final Chain owner;
+
+        private OwnedFuture(Chain owner) {
+            this.owner = owner;
+        }
+    }
+
+    public static final class Builder {
+        private Path localRepository = DEFAULT_LOCAL_REPOSITORY;
+
+        private String remoteBaseUrl;
+
+        private Path pomCacheDirectory = DEFAULT_POM_CACHE_DIRECTORY;
+
+        private HttpClient httpClient;
+
+        private RequestScheduler requestScheduler;
+
+        private Duration requestTimeout = DefaultMvnRepository.DEFAULT_REQUEST_TIMEOUT;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder() {
+        }
+
+        public PomModelResolver build() {
+            return new PomModelResolver(this);
+        }
+
+        public Builder withLocalRepository(Path localRepository) {
+            this.localRepository = localRepository;
+            return this;
+        }
+
+        /**
+         * Fetches POMs that are not in the local repository from a remote repository in the standard layout, such
+         * as {@link MetadataMvnRepository#DEFAULT_BASE_URL}, and keeps released ones in the POM cache directory.
+         *
+         * @param remoteBaseUrl the repository's base URL, or {@code null} to use the local repository alone
+         */
+        public Builder withRemoteRepository(String remoteBaseUrl) {
+            this.remoteBaseUrl = remoteBaseUrl;
+            return this;
+        }
+
+        public Builder withPomCacheDirectory(Path pomCacheDirectory) {
+            this.pomCacheDirectory = Objects.requireNonNull(pomCacheDirectory);
+            return this;
+        }
+
+        public Builder withHttpClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        public Builder withRequestScheduler(RequestScheduler requestScheduler) {
+            this.requestScheduler = requestScheduler;
+            return this;
+        }
+
+        public Builder withRequestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
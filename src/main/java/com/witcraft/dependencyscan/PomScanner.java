@@ -1,7 +1,10 @@
 package com.witcraft.dependencyscan;
 
+import java.util.List;
 import java.util.Map;
 
 public interface PomScanner {
     Map<String, DependencyInfo> scanDependencyInfo();
+
+    List<String> scanModules();
 }
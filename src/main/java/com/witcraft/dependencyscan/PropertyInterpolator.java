@@ -0,0 +1,263 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Log4j2
+public final class PropertyInterpolator {
+    private static final String EXPRESSION_START = "${";
+
+    private static final char EXPRESSION_END = '}';
+
+    private static final String ENV_PREFIX = "env.";
+
+    private final Map<String, String> builtInProperties;
+
+    private final Map<String, String> overrideProperties;
+
+    private final Map<String, String> systemProperties;
+
+    private final Map<String, String> modelProperties;
+
+    private final Map<String, String> environment;
+
+    private final Map<String, String> resolved;
+
+    private PropertyInterpolator(Builder builder) {
+        this.builtInProperties = Map.copyOf(builder.builtInProperties);
+        this.overrideProperties = Map.copyOf(builder.overrideProperties);
+        this.systemProperties = builder.systemProperties;
+        this.modelProperties = builder.modelProperties;
+        this.environment = builder.environment;
+        this.resolved = new ConcurrentHashMap<>();
+        resolveAll();
+    }
+
+    public static PropertyInterpolator forModel(PomModel model) {
+        return builder()
+            .withModel(model)
+            .withSystemProperties(Defaults.SYSTEM_PROPERTIES)
+            .withEnvironment(Defaults.ENVIRONMENT)
+            .build();
+    }
+
+    /**
+     * @return the value a system property, or for an {@code env.} name an environment variable, gives {@code name} in
+     * the interpolators made with {@link #forModel(PomModel)}
+     */
+    static Optional<String> getOverride(String name) {
+        final String value = Defaults.SYSTEM_PROPERTIES.get(name);
+        if (value != null || !name.startsWith(ENV_PREFIX)) {
+            return Optional.ofNullable(value);
+        }
+        return Optional.ofNullable(Defaults.ENVIRONMENT.get(name.substring(ENV_PREFIX.length())));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String interpolate(String value) {
+        if (value == null || !value.contains(EXPRESSION_START)) {
+            return value;
+        }
+        return interpolate(value, new LinkedHashSet<>());
+    }
+
+    public Optional<String> getProperty(String name) {
+        return Optional.ofNullable(resolved.get(name));
+    }
+
+    public Map<String, String> getResolvedProperties() {
+        return Collections.unmodifiableMap(resolved);
+    }
+
+    // System properties are only resolved when a POM refers to them: there are dozens, and few POMs use any.
+    private void resolveAll() {
+        for (Map<String, String> source : List.of(builtInProperties, modelProperties, overrideProperties)) {
+            for (String name : source.keySet()) {
+                resolveProperty(name, new LinkedHashSet<>());
+            }
+        }
+    }
+
+    private String resolveProperty(String name, Set<String> resolving) {
+        final String cached = resolved.get(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String rawValue = lookupRaw(name);
+        if (rawValue == null) {
+            return null;
+        }
+        if (!resolving.add(name)) {
+            log.atWarn().log("Cyclic property reference: {} -> {}", String.join(" -> ", resolving), name);
+            return null;
+        }
+        try {
+            final String value = (rawValue.contains(EXPRESSION_START) ? interpolate(rawValue, resolving) : rawValue);
+            resolved.put(name, value);
+            return value;
+        } finally {
+            resolving.remove(name);
+        }
+    }
+
+    private String lookupRaw(String name) {
+        String value = builtInProperties.get(name);
+        if (value == null) {
+            value = overrideProperties.get(name);
+        }
+        if (value == null) {
+            value = systemProperties.get(name);
+        }
+        if (value == null) {
+            value = modelProperties.get(name);
+        }
+        if (value == null && name.startsWith(ENV_PREFIX)) {
+            value = environment.get(name.substring(ENV_PREFIX.length()));
+        }
+        return value;
+    }
+
+    private String interpolate(String value, Set<String> resolving) {
+        final StringBuilder result = new StringBuilder(value.length() + 16);
+        final int end = interpolate(value, 0, result, resolving, false);
+        if (end < value.length()) {
+            result.append(value, end, value.length());
+        }
+        return result.toString();
+    }
+
+    // Copies value[start..] into result, replacing each ${...} (which may itself contain ${...}) with its resolved value.
+    // When nested is true, stops at the closing brace of the enclosing expression and returns the index just past it.
+    private int interpolate(String value, int start, StringBuilder result, Set<String> resolving, boolean nested) {
+        int index = start;
+        final int length = value.length();
+        while (index < length) {
+            final char ch = value.charAt(index);
+            if (ch == '$' && index + 1 < length && value.charAt(index + 1) == '{') {
+                final StringBuilder name = new StringBuilder();
+                final int expressionEnd = interpolate(value, index + 2, name, resolving, true);
+                if (expressionEnd < 0) {
+                    result.append(value, index, length);
+                    return length;
+                }
+                final String propertyName = name.toString();
+                final String propertyValue = resolveProperty(propertyName, resolving);
+                if (propertyValue == null) {
+                    result.append(EXPRESSION_START).append(propertyName).append(EXPRESSION_END);
+                } else {
+                    result.append(propertyValue);
+                }
+                index = expressionEnd;
+            } else if (nested && ch == EXPRESSION_END) {
+                return index + 1;
+            } else {
+                result.append(ch);
+                index++;
+            }
+        }
+        return (nested ? -1 : index);
+    }
+
+    private static Map<String, String> snapshot(Properties properties) {
+        final Map<String, String> snapshot = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            snapshot.put(name, properties.getProperty(name));
+        }
+        return Map.copyOf(snapshot);
+    }
+
+    // Read once and shared by every interpolator made with forModel; copying them for each POM of a large reactor
+    // costs more than interpolating the POM.
+    private static final class Defaults {
+        private static final Map<String, String> SYSTEM_PROPERTIES = snapshot(System.getProperties());
+
+        private static final Map<String, String> ENVIRONMENT = Map.copyOf(System.getenv());
+    }
+
+    public static final class Builder {
+        private final Map<String, String> builtInProperties = new HashMap<>();
+
+        private final Map<String, String> overrideProperties = new HashMap<>();
+
+        private Map<String, String> systemProperties = Map.of();
+
+        private Map<String, String> modelProperties = Map.of();
+
+        private Map<String, String> environment = Map.of();
+
+        private Builder() {
+        }
+
+        public PropertyInterpolator build() {
+            return new PropertyInterpolator(this);
+        }
+
+        public Builder withModel(PomModel model) {
+            withModelProperties(model.getProperties());
+            putProjectProperty("groupId", model.getGroupId());
+            putProjectProperty("artifactId", model.getArtifactId());
+            putProjectProperty("version", model.getVersion());
+            Optional.ofNullable(model.getPomFile())
+                .map(pomFile -> pomFile.toAbsolutePath().getParent())
+                .map(Object::toString)
+                .ifPresent(basedir -> {
+                    putProjectProperty("basedir", basedir);
+                    builtInProperties.put("basedir", basedir);
+                });
+            Optional.ofNullable(model.getParent()).ifPresent(parent -> {
+                putProjectProperty("parent.groupId", parent.getGroupId());
+                putProjectProperty("parent.artifactId", parent.getArtifactId());
+                putProjectProperty("parent.version", parent.getVersion());
+            });
+            return this;
+        }
+
+        public Builder withModelProperties(Map<String, String> modelProperties) {
+            this.modelProperties = Objects.requireNonNull(modelProperties);
+            return this;
+        }
+
+        public Builder withSystemProperties(Properties systemProperties) {
+            return withSystemProperties(snapshot(systemProperties));
+        }
+
+        /**
+         * @param systemProperties kept as given rather than copied, so one snapshot can be shared by every interpolator
+         */
+        public Builder withSystemProperties(Map<String, String> systemProperties) {
+            this.systemProperties = Objects.requireNonNull(systemProperties);
+            return this;
+        }
+
+        public Builder withOverride(String name, String value) {
+            overrideProperties.put(Objects.requireNonNull(name), Objects.requireNonNull(value));
+            return this;
+        }
+
+        public Builder withEnvironment(Map<String, String> environment) {
+            this.environment = Objects.requireNonNull(environment);
+            return this;
+        }
+
+        private void putProjectProperty(String name, String value) {
+            if (value != null) {
+                builtInProperties.put("project." + name, value);
+                builtInProperties.put("pom." + name, value);
+            }
+        }
+    }
+}
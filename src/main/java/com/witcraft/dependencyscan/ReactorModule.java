@@ -0,0 +1,7 @@
+package com.witcraft.dependencyscan;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+public record ReactorModule(String name, Path pomFile, Map<String, DependencyInfo> dependencies) {
+}
@@ -0,0 +1,47 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class ReactorScanResult {
+    @Getter
+    private final List<ReactorModule> modules;
+
+    private final Map<String, DependencyInfo> uniqueDependencies;
+
+    private final Map<String, List<ReactorModule>> declaringModules;
+
+    ReactorScanResult(Collection<ReactorModule> modules) {
+        this.modules = modules.stream()
+            .sorted(Comparator.comparing(ReactorModule::name))
+            .toList();
+        this.uniqueDependencies = new TreeMap<>();
+        this.declaringModules = new TreeMap<>();
+        for (ReactorModule module : this.modules) {
+            for (DependencyInfo dependency : module.dependencies().values()) {
+                final String key = dependency.getGroupArtifactVersion();
+                uniqueDependencies.putIfAbsent(key, dependency);
+                declaringModules.computeIfAbsent(key, gav -> new ArrayList<>()).add(module);
+            }
+        }
+    }
+
+    public Collection<DependencyInfo> getUniqueDependencies() {
+        return Collections.unmodifiableCollection(uniqueDependencies.values());
+    }
+
+    public List<ReactorModule> getDeclaringModules(DependencyInfo dependency) {
+        return Collections.unmodifiableList(declaringModules.getOrDefault(dependency.getGroupArtifactVersion(), List.of()));
+    }
+
+    public int getDeclarationCount() {
+        return modules.stream().mapToInt(module -> module.dependencies().size()).sum();
+    }
+}
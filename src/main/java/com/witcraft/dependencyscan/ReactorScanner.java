@@ -0,0 +1,255 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+@Log4j2
+public final class ReactorScanner {
+    public static final String POM_FILE_NAME = "pom.xml";
+
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of("target", "node_modules", ".git", ".idea", ".mvn");
+
+    private final Path rootPom;
+
+    private final Path rootDirectory;
+
+    private final boolean walkDirectories;
+
+    private final int parallelism;
+
+    private final PomModelResolver modelResolver;
+
+    private final ScanState scanState;
+
+    private final ForkJoinPool pool;
+
+    private ReactorScanner(Builder builder) {
+        this.rootPom = builder.rootPom.toAbsolutePath().normalize();
+        this.rootDirectory = Optional.ofNullable(rootPom.getParent()).orElse(rootPom);
+        this.walkDirectories = builder.walkDirectories;
+        this.parallelism = builder.parallelism;
+        this.modelResolver = Optional.ofNullable(builder.modelResolver)
+            .orElseGet(() -> PomModelResolver.builder().withLocalRepository(builder.localRepository).build());
+        this.scanState = builder.scanState;
+        this.pool = builder.pool;
+    }
+
+    public static Builder builder(Path rootPom) {
+        return new Builder(rootPom);
+    }
+
+    public ReactorScanResult scan() {
+        final Collection<ReactorModule> modules = new ConcurrentLinkedQueue<>();
+        scan(modules::add);
+        return new ReactorScanResult(modules);
+    }
+
+    /**
+     * Scans the reactor, handing each module to {@code moduleConsumer} as soon as it has been scanned rather than
+     * collecting them. The consumer is called from the scanning threads, concurrently, and may block to apply
+     * backpressure.
+     */
+    public void scan(Consumer<ReactorModule> moduleConsumer) {
+        final ForkJoinPool pool = Optional.ofNullable(this.pool).orElseGet(() -> new ForkJoinPool(parallelism));
+        try {
+            if (walkDirectories) {
+                final List<ScanModuleTask> tasks = findPomFiles().stream()
+                    .map(pomFile -> new ScanModuleTask(pomFile, moduleConsumer, null))
+                    .toList();
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        ForkJoinTask.invokeAll(tasks);
+                    }
+                });
+            } else {
+                pool.invoke(new ScanModuleTask(rootPom, moduleConsumer, ConcurrentHashMap.newKeySet()));
+            }
+        } finally {
+            if (pool != this.pool) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private List<Path> findPomFiles() {
+        final List<Path> pomFiles = new ArrayList<>();
+        try {
+            Files.walkFileTree(rootDirectory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(rootDirectory) && SKIPPED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().equals(POM_FILE_NAME)) {
+                        pomFiles.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        pomFiles.sort(null);
+        return pomFiles;
+    }
+
+    private String getModuleName(Path pomFile) {
+        final Path moduleDirectory = Optional.ofNullable(pomFile.getParent()).orElse(pomFile);
+        final String name = rootDirectory.relativize(moduleDirectory).toString().replace('\\', '/');
+        return (name.isEmpty() ? "." : name);
+    }
+
+    private final class ScanModuleTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Path pomFile;
+
+        private final Consumer<ReactorModule> moduleConsumer;
+
+        private final Set<Path> visited;
+
+        private ScanModuleTask(Path pomFile, Consumer<ReactorModule> moduleConsumer, Set<Path> visited) {
+            this.pomFile = pomFile;
+            this.moduleConsumer = moduleConsumer;
+            this.visited = visited;
+        }
+
+        @Override
+        protected void compute() {
+            if (visited != null && !visited.add(pomFile)) {
+                return;
+            }
+
+            final Map<String, DependencyInfo> dependencies;
+            final List<String> moduleNames;
+            final Optional<ScanState.Entry> unchanged = Optional.ofNullable(scanState).flatMap(state -> state.getUnchanged(pomFile));
+            if (unchanged.isPresent()) {
+                dependencies = unchanged.get().dependencies();
+                moduleNames = unchanged.get().modules();
+            } else {
+                try {
+                    final DefaultPomScanner pomScanner = DefaultPomScanner.builder(pomFile)
+                        .withModelResolver(modelResolver)
+                        .build();
+                    dependencies = pomScanner.scanDependencyInfo();
+                    moduleNames = pomScanner.scanModules();
+                    if (scanState != null) {
+                        scanState.record(pomScanner, dependencies, moduleNames);
+                    }
+                } catch (Exception ex) {
+                    log.atError().withThrowable(ex).log("Failed to scan {}", pomFile);
+                    return;
+                }
+            }
+            moduleConsumer.accept(new ReactorModule(getModuleName(pomFile), pomFile, dependencies));
+
+            if (visited != null) {
+                final List<ScanModuleTask> subtasks = new ArrayList<>();
+                for (String module : moduleNames) {
+                    final Path modulePath = Objects.requireNonNull(pomFile.getParent()).resolve(module).normalize();
+                    final Path modulePom = (Files.isDirectory(modulePath) ? modulePath.resolve(POM_FILE_NAME) : modulePath);
+                    if (Files.isRegularFile(modulePom)) {
+                        subtasks.add(new ScanModuleTask(modulePom, moduleConsumer, visited));
+                    } else {
+                        log.atWarn().log("Module \"{}\" declared in {} not found", module, pomFile);
+                    }
+                }
+                ForkJoinTask.invokeAll(subtasks);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final Path rootPom;
+
+        private boolean walkDirectories;
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private Path localRepository = PomModelResolver.DEFAULT_LOCAL_REPOSITORY;
+
+        private PomModelResolver modelResolver;
+
+        private ScanState scanState;
+
+        private ForkJoinPool pool;
+
+        private Builder(Path rootPom) {
+            this.rootPom = Objects.requireNonNull(rootPom);
+        }
+
+        public ReactorScanner build() {
+            return new ReactorScanner(this);
+        }
+
+        public Builder withWalkDirectories(boolean walkDirectories) {
+            this.walkDirectories = walkDirectories;
+            return this;
+        }
+
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withLocalRepository(Path localRepository) {
+            this.localRepository = Objects.requireNonNull(localRepository);
+            return this;
+        }
+
+        public Builder withModelResolver(PomModelResolver modelResolver) {
+            this.modelResolver = modelResolver;
+            return this;
+        }
+
+        /**
+         * Reuses the recorded scan of every POM that has not changed since it was recorded in {@code scanState},
+         * and records the POMs that had to be parsed.
+         */
+        public Builder withScanState(ScanState scanState) {
+            this.scanState = scanState;
+            return this;
+        }
+
+        /**
+         * Scans on {@code pool}, which is left running, instead of on a pool created for the scan. Parsers are kept
+         * per thread, so a long-lived pool keeps them warm from one scan to the next. The parallelism setting is
+         * ignored.
+         */
+        public Builder withPool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+    }
+}
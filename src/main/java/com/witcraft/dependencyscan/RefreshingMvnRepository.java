@@ -0,0 +1,417 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the cache entries of the most requested artifacts fresh in the background, so that scans find them fresh
+ * instead of waiting for a revalidation.
+ * <p>
+ * Each lookup adds one to its artifact's score, and every refresh interval all scores decay, so a score follows
+ * recent demand. At each interval the hottest artifacts whose entries have used up {@code refreshAhead} of the
+ * cache's time to live are refreshed, hottest first. A lookup that finds a hot artifact's entry expired by less than
+ * {@code maxStaleness} is answered from the stale entry at once, and the entry is refreshed in the background
+ * (stale-while-revalidate).
+ * <p>
+ * Background refreshes, of either kind, share a budget of requests per interval. Once it is spent, lookups wait for
+ * the cache as they would without this repository. Refreshes run one at a time on a single daemon thread, which
+ * {@link #close()} stops.
+ */
+@Log4j2
+public final class RefreshingMvnRepository implements MvnRepository, AutoCloseable {
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    public static final int DEFAULT_REQUEST_BUDGET = 30;
+
+    public static final double DEFAULT_REFRESH_AHEAD = 0.8;
+
+    public static final Duration DEFAULT_HALF_LIFE = Duration.ofHours(1);
+
+    public static final double DEFAULT_HOT_SCORE = 2;
+
+    public static final int DEFAULT_MAX_TRACKED = 1_000;
+
+    // Scores that have decayed below this are forgotten.
+    private static final double MIN_SCORE = 0.05;
+
+    private static final AtomicInteger REFRESHER_COUNT = new AtomicInteger();
+
+    // A registry keeps the first supplier given for a gauge name, so the gauge sums over every open instance instead.
+    private static final Set<RefreshingMvnRepository> OPEN_REFRESHERS = ConcurrentHashMap.newKeySet();
+
+    private final CachingMvnRepository cache;
+
+    private final int requestBudget;
+
+    private final double refreshAhead;
+
+    private final Duration maxStaleness;
+
+    private final double hotScore;
+
+    private final double decayPerInterval;
+
+    private final int maxTracked;
+
+    private final Map<String, Demand> demand = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger remainingBudget;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter refreshCounter;
+
+    private final Counter refreshFailureCounter;
+
+    private final Counter staleServedCounter;
+
+    private final Counter budgetExhaustedCounter;
+
+    private RefreshingMvnRepository(Builder builder) {
+        this.cache = Objects.requireNonNull(builder.cache);
+        this.requestBudget = builder.requestBudget;
+        this.refreshAhead = builder.refreshAhead;
+        this.maxStaleness = builder.maxStaleness;
+        this.hotScore = builder.hotScore;
+        this.decayPerInterval = Math.pow(0.5, (double) builder.refreshInterval.toMillis() / builder.halfLife.toMillis());
+        this.maxTracked = builder.maxTracked;
+        this.remainingBudget = new AtomicInteger(requestBudget);
+        this.refreshCounter = builder.metrics.counter("refresh.requests");
+        this.refreshFailureCounter = builder.metrics.counter("refresh.failures");
+        this.staleServedCounter = builder.metrics.counter("refresh.staleServed");
+        this.budgetExhaustedCounter = builder.metrics.counter("refresh.budgetExhausted");
+        OPEN_REFRESHERS.add(this);
+        builder.metrics.gauge("refresh.tracked", () -> OPEN_REFRESHERS.stream().mapToInt(RefreshingMvnRepository::getTrackedCount).sum());
+
+        final String threadName = "cache-refresh-%d".formatted(REFRESHER_COUNT.incrementAndGet());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long intervalMillis = builder.refreshInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshHotEntries, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder(CachingMvnRepository cache) {
+        return new Builder(cache);
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+        recordDemand(dependency);
+        return serveStale(dependency).orElseGet(() -> cache.lookupArtifactVersions(dependency));
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+        recordDemand(dependency);
+        return serveStale(dependency).orElseGet(() -> cache.lookupArtifactVersions(dependency, pageSize));
+    }
+
+    @Override
+    public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+        if (start > 0) {
+            return cache.lookupArtifactVersions(dependency, pageSize, start);
+        }
+        return lookupArtifactVersions(dependency, pageSize);
+    }
+
+    /**
+     * Answers what it can from stale entries and hands everything else to the cache together, so that the cache can
+     * still batch its misses.
+     */
+    @Override
+    public List<ArtifactVersionHistory> lookupAllArtifactVersions(Collection<DependencyInfo> dependencies, int maxConcurrentLookups) {
+        final List<DependencyInfo> dependencyList = List.copyOf(dependencies);
+        final ArtifactVersionHistory[] results = new ArtifactVersionHistory[dependencyList.size()];
+        final List<Integer> remainingIndexes = new ArrayList<>();
+        for (int i = 0; i < dependencyList.size(); i++) {
+            final DependencyInfo dependency = dependencyList.get(i);
+            recordDemand(dependency);
+            final Optional<ArtifactVersionHistory> stale = serveStale(dependency);
+            if (stale.isPresent()) {
+                results[i] = stale.get();
+            } else {
+                remainingIndexes.add(i);
+            }
+        }
+        if (!remainingIndexes.isEmpty()) {
+            final List<DependencyInfo> remaining = remainingIndexes.stream()
+                .map(dependencyList::get)
+                .toList();
+            final List<ArtifactVersionHistory> looked = cache.lookupAllArtifactVersions(remaining, maxConcurrentLookups);
+            for (int i = 0; i < remainingIndexes.size(); i++) {
+                results[remainingIndexes.get(i)] = looked.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    public long getRefreshCount() {
+        return refreshCounter.getCount();
+    }
+
+    public long getStaleServedCount() {
+        return staleServedCounter.getCount();
+    }
+
+    /**
+     * @return how many artifacts have a demand score
+     */
+    public int getTrackedCount() {
+        return demand.size();
+    }
+
+    @Override
+    public void close() {
+        OPEN_REFRESHERS.remove(this);
+        scheduler.shutdownNow();
+    }
+
+    private void recordDemand(DependencyInfo dependency) {
+        demand.computeIfAbsent(dependency.getGroupArtifact(), key -> new Demand()).record(dependency);
+    }
+
+    private boolean isHot(String key) {
+        final Demand artifactDemand = demand.get(key);
+        return (artifactDemand != null && artifactDemand.getScore() >= hotScore);
+    }
+
+    private Optional<ArtifactVersionHistory> serveStale(DependencyInfo dependency) {
+        final Optional<Instant> fetched = cache.getFetchedTime(dependency);
+        if (fetched.isEmpty()) {
+            return Optional.empty();
+        }
+        final Duration age = Duration.between(fetched.get(), Instant.now());
+        final Duration timeToLive = cache.getTimeToLive();
+        if (age.compareTo(timeToLive) <= 0 || age.compareTo(timeToLive.plus(maxStaleness)) > 0 || !isHot(dependency.getGroupArtifact())) {
+            return Optional.empty();
+        }
+        final Optional<ArtifactVersionHistory> stale = cache.peek(dependency);
+        if (stale.isEmpty() || !scheduleRefresh(dependency)) {
+            return Optional.empty();
+        }
+        log.atDebug().log("[{}] Serving versions fetched {} ago while refreshing them", dependency.getGroupArtifact(), age);
+        staleServedCounter.increment();
+        return stale;
+    }
+
+    /**
+     * @return whether a refresh of {@code dependency}'s artifact is now pending, which it is not if the budget is
+     * spent
+     */
+    private boolean scheduleRefresh(DependencyInfo dependency) {
+        final String key = dependency.getGroupArtifact();
+        if (refreshing.contains(key)) {
+            return true;
+        }
+        if (remainingBudget.getAndUpdate(budget -> Math.max(budget - 1, 0)) == 0) {
+            budgetExhaustedCounter.increment();
+            return false;
+        }
+        if (!refreshing.add(key)) {
+            remainingBudget.incrementAndGet();
+            return true;
+        }
+        try {
+            scheduler.execute(() -> refresh(dependency));
+            return true;
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(key);
+            return false;
+        }
+    }
+
+    private void refresh(DependencyInfo dependency) {
+        refreshCounter.increment();
+        try {
+            if (!cache.refresh(dependency)) {
+                refreshFailureCounter.increment();
+            }
+        } catch (RuntimeException ex) {
+            refreshFailureCounter.increment();
+            log.atWarn().log("[{}] Background refresh failed: {}", dependency.getGroupArtifact(), ex.toString());
+        } finally {
+            refreshing.remove(dependency.getGroupArtifact());
+        }
+    }
+
+    // A scheduled task that throws is never run again, so nothing may escape.
+    private void refreshHotEntries() {
+        try {
+            remainingBudget.set(requestBudget);
+            demand.values().forEach(artifactDemand -> artifactDemand.decay(decayPerInterval));
+            demand.values().removeIf(artifactDemand -> artifactDemand.getScore() < MIN_SCORE);
+            final List<Map.Entry<String, Demand>> hottestFirst = demand.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, Demand> entry) -> entry.getValue().getScore()).reversed())
+                .toList();
+            for (int i = maxTracked; i < hottestFirst.size(); i++) {
+                demand.remove(hottestFirst.get(i).getKey(), hottestFirst.get(i).getValue());
+            }
+
+            final Instant now = Instant.now();
+            final long refreshAfterMillis = (long) (cache.getTimeToLive().toMillis() * refreshAhead);
+            int scheduled = 0;
+            for (Map.Entry<String, Demand> entry : hottestFirst) {
+                if (entry.getValue().getScore() < hotScore || remainingBudget.get() == 0) {
+                    break;
+                }
+                final DependencyInfo dependency = entry.getValue().getDependency();
+                final boolean due = cache.getFetchedTime(dependency)
+                    .map(fetched -> Duration.between(fetched, now).toMillis() >= refreshAfterMillis)
+                    .orElse(false);
+                if (due && scheduleRefresh(dependency)) {
+                    scheduled++;
+                }
+            }
+            if (scheduled > 0) {
+                log.atDebug().log("Refreshing {} of {} tracked artifacts", scheduled, hottestFirst.size());
+            }
+        } catch (RuntimeException ex) {
+            log.atError().withThrowable(ex).log("Failed to schedule cache refreshes");
+        }
+    }
+
+    private static final class Demand {
+        private double score;
+
+        private DependencyInfo dependency;
+
+        synchronized void record(DependencyInfo dependency) {
+            this.score += 1;
+            this.dependency = dependency;
+        }
+
+        synchronized void decay(double factor) {
+            this.score *= factor;
+        }
+
+        synchronized double getScore() {
+            return score;
+        }
+
+        // The most recently requested version, which the cache entry is known to cover.
+        synchronized DependencyInfo getDependency() {
+            return dependency;
+        }
+    }
+
+    public static final class Builder {
+        private final CachingMvnRepository cache;
+
+        private Duration refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+        private int requestBudget = DEFAULT_REQUEST_BUDGET;
+
+        private double refreshAhead = DEFAULT_REFRESH_AHEAD;
+
+        private Duration maxStaleness;
+
+        private Duration halfLife = DEFAULT_HALF_LIFE;
+
+        private double hotScore = DEFAULT_HOT_SCORE;
+
+        private int maxTracked = DEFAULT_MAX_TRACKED;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder(CachingMvnRepository cache) {
+            this.cache = cache;
+            this.maxStaleness = cache.getTimeToLive();
+        }
+
+        public RefreshingMvnRepository build() {
+            return new RefreshingMvnRepository(this);
+        }
+
+        public Builder withRefreshInterval(Duration refreshInterval) {
+            if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+                throw new IllegalArgumentException("refreshInterval must be positive");
+            }
+            this.refreshInterval = refreshInterval;
+            return this;
+        }
+
+        /**
+         * @param requestBudget the most background refreshes started per refresh interval
+         */
+        public Builder withRequestBudget(int requestBudget) {
+            if (requestBudget < 0) {
+                throw new IllegalArgumentException("requestBudget must not be negative");
+            }
+            this.requestBudget = requestBudget;
+            return this;
+        }
+
+        /**
+         * @param refreshAhead the fraction of the cache's time to live after which a hot entry is refreshed
+         */
+        public Builder withRefreshAhead(double refreshAhead) {
+            if (!(refreshAhead > 0 && refreshAhead <= 1)) {
+                throw new IllegalArgumentException("refreshAhead must be greater than 0 and at most 1");
+            }
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        /**
+         * @param maxStaleness how long past its time to live a hot entry may still be served while it is refreshed;
+         *                     the cache's time to live by default
+         */
+        public Builder withMaxStaleness(Duration maxStaleness) {
+            this.maxStaleness = Objects.requireNonNull(maxStaleness);
+            return this;
+        }
+
+        /**
+         * @param halfLife how long it takes an artifact's score to halve once it is no longer requested
+         */
+        public Builder withHalfLife(Duration halfLife) {
+            if (halfLife.isNegative() || halfLife.isZero()) {
+                throw new IllegalArgumentException("halfLife must be positive");
+            }
+            this.halfLife = halfLife;
+            return this;
+        }
+
+        /**
+         * @param hotScore the score from which an artifact is refreshed in the background
+         */
+        public Builder withHotScore(double hotScore) {
+            this.hotScore = hotScore;
+            return this;
+        }
+
+        public Builder withMaxTracked(int maxTracked) {
+            if (maxTracked < 1) {
+                throw new IllegalArgumentException("maxTracked must be at least 1");
+            }
+            this.maxTracked = maxTracked;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.witcraft.dependencyscan;
+
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public enum ReportFormat {
+    /**
+     * One JSON object per dependency, each on a line of its own.
+     */
+    JSON_LINES("jsonl") {
+        @Override
+        public ReportWriter open(Writer writer, Instant now, Path projectRoot) {
+            return new JsonLinesReportWriter(new JsonWriter(writer), now);
+        }
+    },
+    /**
+     * A single JSON document: the dependencies, followed by a summary.
+     */
+    JSON("json") {
+        @Override
+        public ReportWriter open(Writer writer, Instant now, Path projectRoot) {
+            return new JsonReportWriter(new JsonWriter(writer), now);
+        }
+    },
+    /**
+     * A SARIF 2.1.0 log, with a result for each outdated dependency and each incomplete lookup, for code-scanning
+     * UIs.
+     */
+    SARIF("sarif") {
+        @Override
+        public ReportWriter open(Writer writer, Instant now, Path projectRoot) {
+            return new SarifReportWriter(new JsonWriter(writer), now, projectRoot);
+        }
+    };
+
+    private final String name;
+
+    ReportFormat(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param now         when the report was generated, as written into it
+     * @param projectRoot the directory of the scanned project, which locations in the report are made relative to
+     */
+    public abstract ReportWriter open(Writer writer, Instant now, Path projectRoot);
+
+    public static ReportFormat forName(String name) {
+        return Arrays.stream(values())
+            .filter(format -> format.name.equalsIgnoreCase(name))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown report format \"%s\"; expected one of %s".formatted(
+                name,
+                Arrays.stream(values()).map(ReportFormat::getName).collect(Collectors.joining(", "))
+            )));
+    }
+}
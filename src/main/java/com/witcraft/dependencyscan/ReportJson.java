@@ -0,0 +1,59 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The fields the report formats share to describe one dependency.
+ */
+final class ReportJson {
+    private ReportJson() {
+    }
+
+    /**
+     * Writes the fields describing {@code versionHistory} into the object currently open in {@code json}.
+     */
+    static void writeDependencyFields(JsonWriter json, ArtifactVersionHistory versionHistory) throws IOException {
+        final DependencyInfo dependency = versionHistory.getDependency();
+        json.name("groupId").value(dependency.getGroupId())
+            .name("artifactId").value(dependency.getArtifactId())
+            .name("version").value(dependency.getVersion())
+            .name("scope").value(dependency.getScope())
+            .name("publishDate").value(dependency.getPublishDate())
+            .name("status").value(versionHistory.getStatus().name().toLowerCase(Locale.ROOT))
+            .name("statusReason").value(versionHistory.getStatusReason())
+            .name("outdated").value(isOutdated(versionHistory))
+            .name("upgradeCount").value(versionHistory.getUpgradeVersions().size())
+            .name("otherVersionCount").value(versionHistory.getOtherVersions().size());
+        json.name("latestUpgrade");
+        writeVersion(json, versionHistory.getLatestUpgrade());
+        json.name("latestVersion");
+        writeVersion(json, versionHistory.getLatestVersion());
+        json.name("source");
+        final SourceLocation source = dependency.getSource();
+        if (source == null) {
+            json.nullValue();
+        } else {
+            json.beginObject()
+                .name("pomFile").value(source.pomFile())
+                .name("path").value(source.path())
+                .endObject();
+        }
+    }
+
+    static boolean isOutdated(ArtifactVersionHistory versionHistory) {
+        return !versionHistory.getUpgradeVersions().isEmpty();
+    }
+
+    private static void writeVersion(JsonWriter json, Optional<DependencyInfo> version) throws IOException {
+        if (version.isEmpty()) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject()
+            .name("version").value(version.get().getVersion())
+            .name("publishDate").value(version.get().getPublishDate())
+            .endObject();
+    }
+}
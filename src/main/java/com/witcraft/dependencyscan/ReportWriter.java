@@ -0,0 +1,13 @@
+package com.witcraft.dependencyscan;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes a machine-readable report one dependency at a time, as each lookup completes, so that the report never has
+ * to be held in memory. {@link #close()} finishes the document and flushes it, but does not close the underlying
+ * writer.
+ */
+public interface ReportWriter extends Closeable {
+    void write(ArtifactVersionHistory versionHistory) throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * The repositories a scan looks versions up through, for one repository location: the remote (or local) repository,
+ * a version cache in front of it, optionally a background refresher of the hottest cache entries, and lookup
+ * coalescing in front of that. Everything a stack holds stays warm for as long as the stack is kept: connections, the
+ * cache and the lookups in flight.
+ */
+@Log4j2
+@Getter
+public final class RepositoryStack implements AutoCloseable {
+    private final String location;
+
+    private final MvnRepository remoteRepository;
+
+    /**
+     * {@code null} for a local repository.
+     */
+    private final CachingMvnRepository cachingRepository;
+
+    /**
+     * {@code null} unless background refresh was asked for and there is a cache to refresh.
+     */
+    private final RefreshingMvnRepository refreshingRepository;
+
+    private final CoalescingMvnRepository repository;
+
+    private RepositoryStack(String location, boolean backgroundRefresh) {
+        this.location = location;
+        this.remoteRepository = MvnRepository.forLocation(location);
+        this.cachingRepository = newCachingRepository(remoteRepository, location);
+        this.refreshingRepository = (backgroundRefresh && cachingRepository != null ? RefreshingMvnRepository.builder(cachingRepository).build() : null);
+        this.repository = CoalescingMvnRepository.of(
+            Optional.<MvnRepository>ofNullable(refreshingRepository)
+                .or(() -> Optional.ofNullable(cachingRepository))
+                .orElse(remoteRepository)
+        );
+    }
+
+    public static RepositoryStack forLocation(String location) {
+        return forLocation(location, false);
+    }
+
+    /**
+     * @param backgroundRefresh whether to keep the hottest cache entries fresh in the background, which only pays off
+     *                          in a long-running process
+     */
+    public static RepositoryStack forLocation(String location, boolean backgroundRefresh) {
+        return new RepositoryStack(location, backgroundRefresh);
+    }
+
+    /**
+     * @return how many dependencies a scan should hand to the stack at once: only the search repository combines
+     * lookups, and for the others a batch only delays its first results
+     */
+    public int getMaxBatchSize() {
+        return (remoteRepository instanceof DefaultMvnRepository ? DefaultMvnRepository.DEFAULT_MAX_BATCH_SIZE : 1);
+    }
+
+    public void logStats() {
+        if (remoteRepository instanceof DefaultMvnRepository searchRepository) {
+            log.debug("{}", searchRepository.getConnectionStats());
+        } else if (remoteRepository instanceof MetadataMvnRepository metadataRepository) {
+            log.debug("{}", metadataRepository.getConnectionStats());
+        }
+        log.debug("Lookups: {} performed, {} coalesced, {} fallbacks", repository.getLookupCount(), repository.getCoalescedCount(), repository.getFallbackCount());
+        if (cachingRepository != null) {
+            log.debug("Version cache: {} hits, {} revalidations, {} stale, {} misses", cachingRepository.getHitCount(), cachingRepository.getRevalidationCount(), cachingRepository.getStaleCount(), cachingRepository.getMissCount());
+        }
+        if (refreshingRepository != null) {
+            log.debug("Background refresh: {} artifacts tracked, {} refreshes, {} served stale while refreshing", refreshingRepository.getTrackedCount(), refreshingRepository.getRefreshCount(), refreshingRepository.getStaleServedCount());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (refreshingRepository != null) {
+            refreshingRepository.close();
+        }
+    }
+
+    // A local repository is already file-level I/O, and each remote repository gets its own cache directory.
+    private static CachingMvnRepository newCachingRepository(MvnRepository repository, String location) {
+        if (repository instanceof LocalMvnRepository) {
+            return null;
+        }
+        final CachingMvnRepository.Builder builder = CachingMvnRepository.builder(repository);
+        if (repository instanceof MetadataMvnRepository) {
+            builder.withCacheDirectory(CachingMvnRepository.DEFAULT_CACHE_DIRECTORY.resolve(URLEncoder.encode(location, StandardCharsets.UTF_8)));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,407 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Sends HTTP requests on behalf of the repositories, keeping them within a rate limit, retrying transient failures
+ * and failing fast while the remote end keeps failing.
+ * <ul>
+ *     <li>A token bucket limits how many requests start per second, allowing short bursts.</li>
+ *     <li>Connection failures and HTTP 429, 500, 502, 503 and 504 are retried with jittered exponential backoff. A
+ *     {@code Retry-After} header takes precedence over the backoff and also holds back every other request.</li>
+ *     <li>After enough consecutive failures the circuit opens and requests fail with {@link CircuitOpenException}
+ *     until a single trial request succeeds again.</li>
+ * </ul>
+ * A scheduler can be shared by several repositories to give them a common budget.
+ */
+@Log4j2
+public final class RequestScheduler {
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 10;
+
+    public static final int DEFAULT_BURST = 10;
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 4;
+
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(500);
+
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    public static final Duration DEFAULT_MAX_RETRY_AFTER = Duration.ofMinutes(2);
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(429, 500, 502, 503, 504);
+
+    private final TokenBucket tokenBucket;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final int maxAttempts;
+
+    private final Duration initialBackoff;
+
+    private final Duration maxBackoff;
+
+    private final Duration maxRetryAfter;
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final Timer queueTimer;
+
+    private final Timer attemptTimer;
+
+    private final Counter retryCounter;
+
+    private final Counter rejectedCounter;
+
+    private RequestScheduler(Builder builder) {
+        this.tokenBucket = new TokenBucket(builder.requestsPerSecond, builder.burst);
+        this.circuitBreaker = new CircuitBreaker(builder.failureThreshold, builder.openDuration);
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.maxRetryAfter = builder.maxRetryAfter;
+        this.queueTimer = builder.metrics.timer("http.queue");
+        this.attemptTimer = builder.metrics.timer("http.attempt");
+        this.retryCounter = builder.metrics.counter("http.retries");
+        this.rejectedCounter = builder.metrics.counter("http.rejected");
+    }
+
+    public static RequestScheduler newInstance() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Sends {@code request}, retrying as needed. The returned response is the last one received, so it can still
+     * have a retryable status once the attempts are exhausted; its body is {@code null} in that case.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        final HttpResponse.BodyHandler<T> handler = responseInfo -> (isRetryable(responseInfo.statusCode()) ?
+            HttpResponse.BodySubscribers.replacing(null) :
+            bodyHandler.apply(responseInfo));
+        return attempt(httpClient, request, handler, 1);
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> handler, int attempt) {
+        if (!circuitBreaker.tryAcquire()) {
+            rejectedCount.increment();
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(new CircuitOpenException(request));
+        }
+        final long queuedAt = System.nanoTime();
+        return tokenBucket.acquire()
+            .thenCompose(ignored -> {
+                queueTimer.recordSince(queuedAt);
+                final long sentAt = System.nanoTime();
+                return httpClient.sendAsync(request, handler)
+                    .whenComplete((response, ex) -> attemptTimer.recordSince(sentAt));
+            })
+            .handle((response, ex) -> {
+                if (ex != null) {
+                    final Throwable cause = (ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                    circuitBreaker.recordFailure();
+                    if (attempt < maxAttempts && cause instanceof IOException) {
+                        log.atDebug().log("Attempt {} of {} failed: {}", attempt, request.uri(), cause.toString());
+                        return retry(httpClient, request, handler, attempt, getBackoff(attempt));
+                    }
+                    return CompletableFuture.<HttpResponse<T>>failedFuture(cause);
+                }
+                if (!isRetryable(response.statusCode())) {
+                    circuitBreaker.recordSuccess();
+                    return CompletableFuture.completedFuture(response);
+                }
+
+                circuitBreaker.recordFailure();
+                final Optional<Duration> retryAfter = getRetryAfter(response);
+                if (attempt >= maxAttempts || retryAfter.filter(delay -> delay.compareTo(maxRetryAfter) > 0).isPresent()) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                log.atDebug().log("Attempt {} of {} returned HTTP {}", attempt, request.uri(), response.statusCode());
+                discardBody(response);
+                // Only a Retry-After that is going to be honoured holds back the other requests; a longer one has
+                // already ended the attempts above.
+                retryAfter.ifPresent(tokenBucket::pause);
+                final Duration backoff = getBackoff(attempt);
+                return retry(httpClient, request, handler, attempt, retryAfter.filter(delay -> delay.compareTo(backoff) > 0).orElse(backoff));
+            })
+            .thenCompose(Function.identity());
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> retry(HttpClient httpClient, HttpRequest request, HttpResponse.BodyHandler<T> handler, int attempt, Duration delay) {
+        retryCount.increment();
+        retryCounter.increment();
+        return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS))
+            .thenCompose(ignored -> attempt(httpClient, request, handler, attempt + 1));
+    }
+
+    // Full jitter: a random delay between zero and the exponential backoff for this attempt.
+    private Duration getBackoff(int attempt) {
+        final long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    // The handler from send(...) already drains retryable responses, but a body that did get through is closed here
+    // so an abandoned stream does not hold on to its connection.
+    private static void discardBody(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ex) {
+                log.atDebug().log("Failed to close the body of {}: {}", response.uri(), ex.toString());
+            }
+        }
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return RETRYABLE_STATUS_CODES.contains(statusCode);
+    }
+
+    private static Optional<Duration> getRetryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+            .map(String::trim)
+            .flatMap(RequestScheduler::parseRetryAfter);
+    }
+
+    private static Optional<Duration> parseRetryAfter(String value) {
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            final Instant retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            final Duration delay = Duration.between(Instant.now(), retryAt);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException ex) {
+            log.atDebug().log("Ignoring unrecognized Retry-After value \"{}\"", value);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Thrown when a request is not sent because the circuit is open.
+     */
+    public static final class CircuitOpenException extends IOException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private CircuitOpenException(HttpRequest request) {
+            super("Not sending %s: too many consecutive failures".formatted(request.uri()));
+        }
+    }
+
+    private static final class TokenBucket {
+        private final double permitsPerNano;
+
+        private final double capacity;
+
+        private double tokens;
+
+        private long lastRefill;
+
+        private long pausedUntil;
+
+        private TokenBucket(double permitsPerSecond, int burst) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = burst;
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+            this.pausedUntil = lastRefill;
+        }
+
+        CompletableFuture<Void> acquire() {
+            final long delay = reserve();
+            if (delay <= 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS));
+        }
+
+        synchronized void pause(Duration duration) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+        }
+
+        // Takes a token, going into debt when there is none, and returns how long the caller must wait for it.
+        private synchronized long reserve() {
+            final long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            tokens -= 1;
+            final long debtDelay = (tokens < 0 ? (long) Math.ceil(-tokens / permitsPerNano) : 0L);
+            return Math.max(debtDelay, pausedUntil - now);
+        }
+    }
+
+    private static final class CircuitBreaker {
+        private final int failureThreshold;
+
+        private final long openNanos;
+
+        private int consecutiveFailures;
+
+        private boolean open;
+
+        private boolean trialInFlight;
+
+        private long openedAt;
+
+        private CircuitBreaker(int failureThreshold, Duration openDuration) {
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openDuration.toNanos();
+        }
+
+        synchronized boolean isOpen() {
+            return open;
+        }
+
+        // While open, lets a single trial request through once the open duration has passed.
+        synchronized boolean tryAcquire() {
+            if (!open) {
+                return true;
+            }
+            if (trialInFlight || System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            trialInFlight = true;
+            return true;
+        }
+
+        synchronized void recordSuccess() {
+            if (open) {
+                log.atInfo().log("Requests are succeeding again; closing the circuit");
+            }
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void recordFailure() {
+            consecutiveFailures++;
+            if (trialInFlight || (!open && consecutiveFailures >= failureThreshold)) {
+                if (!open) {
+                    log.atWarn().log("{} consecutive request failures; pausing requests for {} ms", consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+                }
+                open = true;
+                trialInFlight = false;
+                openedAt = System.nanoTime();
+            }
+        }
+    }
+
+    public static final class Builder {
+        private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+
+        private int burst = DEFAULT_BURST;
+
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+        private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+
+        private Duration maxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+
+        private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+
+        private Duration openDuration = DEFAULT_OPEN_DURATION;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder() {
+        }
+
+        public RequestScheduler build() {
+            return new RequestScheduler(this);
+        }
+
+        public Builder withRateLimit(double requestsPerSecond, int burst) {
+            if (!(requestsPerSecond > 0)) {
+                throw new IllegalArgumentException("requestsPerSecond must be positive");
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be at least 1");
+            }
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+            return this;
+        }
+
+        public Builder withMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder withBackoff(Duration initialBackoff, Duration maxBackoff) {
+            this.initialBackoff = Objects.requireNonNull(initialBackoff);
+            this.maxBackoff = Objects.requireNonNull(maxBackoff);
+            return this;
+        }
+
+        public Builder withMaxRetryAfter(Duration maxRetryAfter) {
+            this.maxRetryAfter = Objects.requireNonNull(maxRetryAfter);
+            return this;
+        }
+
+        public Builder withCircuitBreaker(int failureThreshold, Duration openDuration) {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be at least 1");
+            }
+            this.failureThreshold = failureThreshold;
+            this.openDuration = Objects.requireNonNull(openDuration);
+            return this;
+        }
+
+        /**
+         * @param metrics records the time requests wait for the rate limiter ({@code http.queue}), the time to the
+         *                response headers of each attempt ({@code http.attempt}), retries and rejections
+         */
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Writes a <a href="https://docs.oasis-open.org/sarif/sarif/v2.1.0/sarif-v2.1.0.html">SARIF 2.1.0</a> log with one
+ * run. Outdated dependencies and incomplete lookups become results located at the declaring POM; up-to-date
+ * dependencies produce none. Each result carries the same fields as the JSON report in its property bag.
+ */
+final class SarifReportWriter implements ReportWriter {
+    static final String SCHEMA_URI = "https://json.schemastore.org/sarif-2.1.0.json";
+
+    static final String OUTDATED_RULE_ID = "outdated-dependency";
+
+    static final String INCOMPLETE_RULE_ID = "incomplete-lookup";
+
+    private final JsonWriter json;
+
+    private final Instant now;
+
+    private final Path projectRoot;
+
+    private boolean started;
+
+    private boolean closed;
+
+    SarifReportWriter(JsonWriter json, Instant now, Path projectRoot) {
+        this.json = json;
+        this.now = now;
+        this.projectRoot = projectRoot.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void write(ArtifactVersionHistory versionHistory) throws IOException {
+        start();
+        if (ReportJson.isOutdated(versionHistory)) {
+            final DependencyInfo latestUpgrade = versionHistory.getLatestUpgrade().orElseThrow();
+            writeResult(versionHistory, OUTDATED_RULE_ID, 0, "warning", "%s %s can be upgraded to %s".formatted(
+                versionHistory.getDependency().getGroupArtifact(),
+                versionHistory.getDependency().getVersion(),
+                latestUpgrade.getVersion()
+            ));
+        }
+        if (!versionHistory.isComplete()) {
+            writeResult(versionHistory, INCOMPLETE_RULE_ID, 1, "note", "The lookup of %s was %s, so newer versions may be missing: %s".formatted(
+                versionHistory.getDependency().getGroupArtifact(),
+                versionHistory.getStatus().name().toLowerCase(Locale.ROOT),
+                versionHistory.getStatusReason()
+            ));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        start();
+        json.endArray()
+            .name("invocations").beginArray()
+            .beginObject()
+            .name("executionSuccessful").value(true)
+            .name("startTimeUtc").value(now)
+            .name("endTimeUtc").value(Instant.now())
+            .endObject()
+            .endArray()
+            .endObject()
+            .endArray()
+            .endObject();
+        json.flush();
+    }
+
+    private void start() throws IOException {
+        if (started) {
+            return;
+        }
+        started = true;
+        json.beginObject()
+            .name("$schema").value(SCHEMA_URI)
+            .name("version").value("2.1.0")
+            .name("runs").beginArray()
+            .beginObject()
+            .name("tool").beginObject()
+            .name("driver").beginObject()
+            .name("name").value("dependency-scan")
+            .name("rules").beginArray();
+        writeRule(OUTDATED_RULE_ID, "A newer version with the same major version is available", "warning");
+        writeRule(INCOMPLETE_RULE_ID, "The version lookup did not complete, so newer versions may be missing", "note");
+        json.endArray()
+            .endObject()
+            .endObject()
+            .name("originalUriBaseIds").beginObject()
+            .name("PROJECTROOT").beginObject()
+            .name("uri").value(projectRoot.toUri())
+            .endObject()
+            .endObject()
+            .name("results").beginArray();
+    }
+
+    private void writeRule(String id, String description, String level) throws IOException {
+        json.beginObject()
+            .name("id").value(id)
+            .name("shortDescription").beginObject()
+            .name("text").value(description)
+            .endObject()
+            .name("defaultConfiguration").beginObject()
+            .name("level").value(level)
+            .endObject()
+            .endObject();
+    }
+
+    private void writeResult(ArtifactVersionHistory versionHistory, String ruleId, int ruleIndex, String level, String message) throws IOException {
+        final DependencyInfo dependency = versionHistory.getDependency();
+        json.beginObject()
+            .name("ruleId").value(ruleId)
+            .name("ruleIndex").value(ruleIndex)
+            .name("level").value(level)
+            .name("message").beginObject()
+            .name("text").value(message)
+            .endObject();
+        final SourceLocation source = dependency.getSource();
+        if (source != null) {
+            json.name("locations").beginArray()
+                .beginObject()
+                .name("physicalLocation").beginObject()
+                .name("artifactLocation");
+            writeArtifactLocation(source.pomFile());
+            json.endObject()
+                .name("logicalLocations").beginArray()
+                .beginObject()
+                .name("fullyQualifiedName").value(source.path())
+                .name("kind").value("element")
+                .endObject()
+                .endArray()
+                .endObject()
+                .endArray();
+        }
+        // Keyed by artifact rather than version, so that an upgrade that is still not the latest stays the same alert.
+        json.name("partialFingerprints").beginObject()
+            .name("dependency/v1").value(dependency.getGroupArtifact())
+            .endObject();
+        json.name("properties").beginObject();
+        ReportJson.writeDependencyFields(json, versionHistory);
+        json.endObject()
+            .endObject();
+    }
+
+    // Relative to the project root where possible, which is what code-scanning UIs resolve against.
+    private void writeArtifactLocation(Path pomFile) throws IOException {
+        final Path absolute = pomFile.toAbsolutePath().normalize();
+        json.beginObject();
+        if (absolute.startsWith(projectRoot)) {
+            json.name("uri").value(projectRoot.toUri().relativize(absolute.toUri()))
+                .name("uriBaseId").value("PROJECTROOT");
+        } else {
+            json.name("uri").value(absolute.toUri());
+        }
+        json.endObject();
+    }
+}
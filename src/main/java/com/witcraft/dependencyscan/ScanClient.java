@@ -0,0 +1,115 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.StringJoiner;
+
+/**
+ * Asks a running {@link ScanServer} for a scan and copies the report to standard output, or to the file given with
+ * {@code --report-file=}. It takes the same scan options as {@link Main}, plus {@code --port=<port>}, and
+ * {@code --health} or {@code --stop} to query or stop the server instead of scanning.
+ * <p>
+ * This class deliberately uses nothing but the JDK's built-in HTTP support, and no logging or XML, so that the JVM
+ * running it starts in as little time as possible; the scanning itself happens in the server.
+ */
+public final class ScanClient {
+    /**
+     * The exit status when no server is listening.
+     */
+    public static final int NO_SERVER_STATUS = 2;
+
+    private ScanClient() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of("pom.xml");
+        Path reportFile = null;
+        int port = ScanServer.DEFAULT_PORT;
+        String endpoint = "scan";
+        String method = "POST";
+        final StringJoiner query = new StringJoiner("&");
+        for (String arg : args) {
+            switch (arg) {
+                case "--reactor" -> query.add("reactor=true");
+                case "--walk" -> query.add("walk=true");
+                case "--incremental" -> query.add("incremental=true");
+                case "--transitive" -> query.add("transitive=true");
+                case "--health" -> {
+                    endpoint = "health";
+                    method = "GET";
+                }
+                case "--stop" -> endpoint = "shutdown";
+                default -> {
+                    if (arg.startsWith("--repository=")) {
+                        query.add("repository=" + encode(arg.substring("--repository=".length())));
+                    } else if (arg.startsWith("--pom-repository=")) {
+                        query.add("pomRepository=" + encode(arg.substring("--pom-repository=".length())));
+                    } else if (arg.startsWith("--report=")) {
+                        query.add("format=" + encode(arg.substring("--report=".length())));
+                    } else if (arg.startsWith("--report-file=")) {
+                        reportFile = Path.of(arg.substring("--report-file=".length()));
+                    } else if (arg.startsWith("--port=")) {
+                        port = Integer.parseInt(arg.substring("--port=".length()));
+                    } else {
+                        path = Path.of(arg);
+                    }
+                }
+            }
+        }
+        // The server has its own working directory, so paths are resolved here.
+        query.add("path=" + encode(path.toAbsolutePath().normalize().toString()));
+
+        final URI uri = URI.create("http://127.0.0.1:%d/%s%s".formatted(port, endpoint, (endpoint.equals("scan") ? "?" + query : "")));
+        final HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        connection.setRequestMethod(method);
+        final int status;
+        try {
+            status = connection.getResponseCode();
+        } catch (ConnectException ex) {
+            System.err.printf("No scan server is listening on port %d; start one with --serve%n", port);
+            System.exit(NO_SERVER_STATUS);
+            return;
+        }
+        if (status >= 400) {
+            try (InputStream error = connection.getErrorStream()) {
+                System.err.printf("HTTP %d: %s", status, (error != null ? new String(error.readAllBytes(), StandardCharsets.UTF_8) : ""));
+            }
+            System.exit(1);
+            return;
+        }
+        try (InputStream body = connection.getInputStream()) {
+            if (reportFile == null) {
+                copy(body, System.out);
+            } else {
+                try (OutputStream output = Files.newOutputStream(reportFile)) {
+                    copy(body, output);
+                }
+            }
+        }
+    }
+
+    // Copies as the server streams, so the first results show up while the scan is still running.
+    private static void copy(InputStream input, OutputStream output) throws IOException {
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) >= 0) {
+            output.write(buffer, 0, read);
+            if (input.available() == 0) {
+                output.flush();
+            }
+        }
+        output.flush();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
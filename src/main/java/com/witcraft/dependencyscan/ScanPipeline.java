@@ -0,0 +1,449 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Scans POMs and looks up their dependencies as three stages joined by bounded queues:
+ * <ol>
+ *     <li>a scan thread runs the {@link Source} and queues each dependency the first time it is declared;</li>
+ *     <li>lookup workers take whatever is queued, up to {@code maxBatchSize} dependencies at a time, so that a
+ *     batching repository can combine them, and look them up;</li>
+ *     <li>each result is published to the subscriber as soon as its lookup completes.</li>
+ * </ol>
+ * A full queue blocks the stage that feeds it, so a slow subscriber holds back the lookups and slow lookups hold back
+ * the scan. Memory use is bounded by the queue capacities rather than by the number of dependencies; only the keys of
+ * the dependencies already seen are kept for the whole run.
+ * <p>
+ * A pipeline runs once, when it is first subscribed to.
+ */
+@Log4j2
+public final class ScanPipeline implements Flow.Publisher<ArtifactVersionHistory> {
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final Work END_OF_SCAN = new Work(null);
+
+    private static final AtomicInteger PIPELINE_COUNT = new AtomicInteger();
+
+    private final Source source;
+
+    private final MvnRepository repository;
+
+    private final int queueCapacity;
+
+    private final int lookupWorkers;
+
+    private final int maxBatchSize;
+
+    private final boolean trackDeclaringModules;
+
+    private final Timer firstResultTimer;
+
+    private final Histogram batchSizeHistogram;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final AtomicBoolean firstResultPublished = new AtomicBoolean();
+
+    private final Set<String> seenDependencies = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Queue<String>> declaringModules = new ConcurrentHashMap<>();
+
+    private final AtomicInteger moduleCount = new AtomicInteger();
+
+    private final LongAdder declarationCount = new LongAdder();
+
+    private volatile boolean cancelled;
+
+    private ScanPipeline(Builder builder) {
+        this.source = Objects.requireNonNull(builder.source);
+        this.repository = Objects.requireNonNull(builder.repository);
+        this.queueCapacity = builder.queueCapacity;
+        this.lookupWorkers = builder.lookupWorkers;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.trackDeclaringModules = builder.trackDeclaringModules;
+        this.firstResultTimer = builder.metrics.timer("pipeline.firstResult");
+        this.batchSizeHistogram = builder.metrics.histogram("pipeline.batchSize");
+    }
+
+    public static Builder builder(Source source, MvnRepository repository) {
+        return new Builder(source, repository);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ArtifactVersionHistory> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!started.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A ScanPipeline can only be subscribed to once"));
+            return;
+        }
+
+        final long startedAt = System.nanoTime();
+        final int pipelineId = PIPELINE_COUNT.incrementAndGet();
+        // At most one delivery thread, which exits once the subscriber has been idle for a second.
+        final ThreadPoolExecutor deliveryExecutor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            runnable -> newThread(runnable, "scan-%d-publish".formatted(pipelineId)));
+        final SubmissionPublisher<ArtifactVersionHistory> output = new SubmissionPublisher<>(deliveryExecutor, queueCapacity);
+        output.subscribe(subscriber);
+
+        final BlockingQueue<Work> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final List<Thread> workers = new ArrayList<>(lookupWorkers);
+        for (int i = 1; i <= lookupWorkers; i++) {
+            final Thread worker = newThread(() -> runWorker(queue, output, startedAt), "scan-%d-lookup-%d".formatted(pipelineId, i));
+            workers.add(worker);
+            worker.start();
+        }
+        newThread(() -> runScan(queue, output, workers), "scan-%d-source".formatted(pipelineId)).start();
+    }
+
+    /**
+     * Subscribes {@code consumer} and calls it with each result in turn, on the delivery thread. Cancelling the
+     * returned future cancels the scan.
+     *
+     * @return a future completed once every result has been consumed, or exceptionally if the scan or the consumer
+     * failed
+     */
+    public CompletableFuture<Void> consume(Consumer<? super ArtifactVersionHistory> consumer) {
+        Objects.requireNonNull(consumer);
+        final CompletableFuture<Void> completion = new CompletableFuture<>();
+        subscribe(new Flow.Subscriber<ArtifactVersionHistory>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                completion.whenComplete((ignored, ex) -> {
+                    if (ex instanceof CancellationException) {
+                        subscription.cancel();
+                    }
+                });
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ArtifactVersionHistory item) {
+                try {
+                    consumer.accept(item);
+                    subscription.request(1);
+                } catch (RuntimeException ex) {
+                    subscription.cancel();
+                    completion.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completion.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completion.complete(null);
+            }
+        });
+        return completion;
+    }
+
+    public int getModuleCount() {
+        return moduleCount.get();
+    }
+
+    public long getDeclarationCount() {
+        return declarationCount.sum();
+    }
+
+    public int getUniqueDependencyCount() {
+        return seenDependencies.size();
+    }
+
+    /**
+     * @return the names of the modules that declared {@code dependency} so far; empty unless declaring modules are
+     * tracked
+     */
+    public List<String> getDeclaringModules(DependencyInfo dependency) {
+        return List.copyOf(declaringModules.getOrDefault(dependency.getGroupArtifactVersion(), new ConcurrentLinkedQueue<>()));
+    }
+
+    private void runScan(BlockingQueue<Work> queue, SubmissionPublisher<ArtifactVersionHistory> output, List<Thread> workers) {
+        Throwable failure = null;
+        try {
+            source.scan(module -> enqueue(module, queue));
+        } catch (Throwable ex) {
+            failure = ex;
+        }
+        try {
+            // A single end marker, which every worker puts back for the next one when it sees it.
+            queue.put(END_OF_SCAN);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure = Objects.requireNonNullElse(failure, ex);
+        }
+        if (failure != null && !cancelled) {
+            log.atDebug().withThrowable(failure).log("Scan failed");
+            output.closeExceptionally(failure);
+        } else {
+            output.close();
+        }
+    }
+
+    private void enqueue(ReactorModule module, BlockingQueue<Work> queue) {
+        moduleCount.incrementAndGet();
+        declarationCount.add(module.dependencies().size());
+        for (DependencyInfo dependency : module.dependencies().values()) {
+            if (cancelled) {
+                throw new CancellationException("Scan cancelled");
+            }
+            final String key = dependency.getGroupArtifactVersion();
+            if (trackDeclaringModules) {
+                declaringModules.computeIfAbsent(key, gav -> new ConcurrentLinkedQueue<>()).add(module.name());
+            }
+            if (seenDependencies.add(key)) {
+                try {
+                    put(queue, new Work(dependency));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Scan interrupted");
+                }
+            }
+        }
+    }
+
+    // A worker that dies fails the whole scan, rather than leaving its drained dependencies unreported while the
+    // others carry on. Clearing the queue lets a source blocked on it notice the cancellation.
+    private void runWorker(BlockingQueue<Work> queue, SubmissionPublisher<ArtifactVersionHistory> output, long startedAt) {
+        try {
+            runLookups(queue, output, startedAt);
+        } catch (Throwable ex) {
+            log.atError().withThrowable(ex).log("Lookup worker failed");
+            cancelled = true;
+            output.closeExceptionally(ex);
+            queue.clear();
+            putEndOfScan(queue);
+        }
+    }
+
+    private void runLookups(BlockingQueue<Work> queue, SubmissionPublisher<ArtifactVersionHistory> output, long startedAt) {
+        final List<Work> drained = new ArrayList<>(maxBatchSize);
+        boolean endOfScan = false;
+        while (!endOfScan) {
+            drained.clear();
+            try {
+                drained.add(queue.take());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(drained, maxBatchSize - 1);
+
+            final List<DependencyInfo> batch = new ArrayList<>(drained.size());
+            for (Work work : drained) {
+                if (work == END_OF_SCAN) {
+                    endOfScan = true;
+                } else {
+                    batch.add(work.dependency());
+                }
+            }
+            // Nothing is queued after the end marker, and it was just taken, so putting it back for the other workers
+            // never has to wait for room.
+            if (endOfScan) {
+                putEndOfScan(queue);
+            }
+
+            if (batch.isEmpty()) {
+                continue;
+            }
+            if (cancelled || !output.hasSubscribers()) {
+                cancelled = true;
+                continue;
+            }
+            batchSizeHistogram.record(batch.size());
+            for (ArtifactVersionHistory versionHistory : lookup(batch)) {
+                if (firstResultPublished.compareAndSet(false, true)) {
+                    firstResultTimer.recordSince(startedAt);
+                }
+                output.submit(versionHistory);
+            }
+        }
+    }
+
+    // Sources may scan on a ForkJoinPool shared with other scans, such as the server's parser pool. Blocking through
+    // managedBlock lets the pool make up for the thread this scan holds, so a full queue does not stall the others.
+    private static void put(BlockingQueue<Work> queue, Work work) throws InterruptedException {
+        if (queue.offer(work)) {
+            return;
+        }
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            private boolean queued;
+
+            @Override
+            public boolean block() throws InterruptedException {
+                if (!queued) {
+                    queue.put(work);
+                    queued = true;
+                }
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return queued || (queued = queue.offer(work));
+            }
+        });
+    }
+
+    private static void putEndOfScan(BlockingQueue<Work> queue) {
+        try {
+            queue.put(END_OF_SCAN);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Errors too, such as a StackOverflowError while parsing a version: the batch is reported as incomplete and the
+    // worker carries on.
+    private List<ArtifactVersionHistory> lookup(List<DependencyInfo> batch) {
+        try {
+            if (batch.size() == 1) {
+                return List.of(repository.lookupArtifactVersions(batch.get(0)));
+            }
+            return repository.lookupAllArtifactVersions(batch, 1);
+        } catch (Throwable ex) {
+            log.atError().withThrowable(ex).log("Failed to look up {} dependencies", batch.size());
+            return batch.stream()
+                .map(dependency -> ArtifactVersionHistory.of(dependency).markIncomplete(ex.toString()))
+                .toList();
+        }
+    }
+
+    private static Thread newThread(Runnable runnable, String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private record Work(DependencyInfo dependency) {
+    }
+
+    /**
+     * Produces the modules to scan, handing each to the consumer as soon as it is scanned. The consumer blocks while
+     * the pipeline is full.
+     */
+    @FunctionalInterface
+    public interface Source {
+        static Source of(ReactorScanner scanner) {
+            return scanner::scan;
+        }
+
+        static Source of(Collection<ReactorModule> modules) {
+            return moduleConsumer -> modules.forEach(moduleConsumer);
+        }
+
+        void scan(Consumer<ReactorModule> moduleConsumer) throws Exception;
+    }
+
+    public static final class Builder {
+        private final Source source;
+
+        private final MvnRepository repository;
+
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+        private int lookupWorkers = MvnRepository.DEFAULT_MAX_CONCURRENT_LOOKUPS;
+
+        private int maxBatchSize = DefaultMvnRepository.DEFAULT_MAX_BATCH_SIZE;
+
+        private boolean trackDeclaringModules;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder(Source source, MvnRepository repository) {
+            this.source = source;
+            this.repository = repository;
+        }
+
+        public ScanPipeline build() {
+            return new ScanPipeline(this);
+        }
+
+        /**
+         * @param queueCapacity the most dependencies waiting for a lookup, and the most results waiting for the
+         *                      subscriber
+         */
+        public Builder withQueueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("queueCapacity must be at least 1");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder withLookupWorkers(int lookupWorkers) {
+            if (lookupWorkers < 1) {
+                throw new IllegalArgumentException("lookupWorkers must be at least 1");
+            }
+            this.lookupWorkers = lookupWorkers;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize the most queued dependencies a worker hands to
+         *                     {@link MvnRepository#lookupAllArtifactVersions(Collection, int)} at once
+         */
+        public Builder withMaxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be at least 1");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Keeps the names of the modules declaring each dependency, for {@link #getDeclaringModules(DependencyInfo)}.
+         * This grows with the number of declarations, so it is off by default.
+         */
+        public Builder withTrackDeclaringModules(boolean trackDeclaringModules) {
+            this.trackDeclaringModules = trackDeclaringModules;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * What to scan: a single POM, or a reactor found from its root POM by following {@code <modules>} or by walking the
+ * directory tree.
+ *
+ * @param incremental      whether to reuse the recorded scan of POMs that have not changed since the last
+ *                         incremental scan of the project, and record the rest
+ * @param transitive       whether to scan each module's transitive dependencies too, see
+ *                         {@link DependencyGraphResolver}
+ * @param pomRepositoryUrl where to fetch the POMs of transitive dependencies that are not in the local repository, or
+ *                         {@code null} to use the local repository alone
+ */
+@Log4j2
+public record ScanRequest(Path path, boolean reactor, boolean walkDirectories, boolean incremental, boolean transitive, String pomRepositoryUrl) {
+    public ScanRequest {
+        Objects.requireNonNull(path, "path");
+        reactor = (reactor || walkDirectories);
+        pomRepositoryUrl = Optional.ofNullable(pomRepositoryUrl).filter(not(String::isBlank)).orElse(null);
+    }
+
+    public ScanRequest(Path path, boolean reactor, boolean walkDirectories, boolean incremental) {
+        this(path, reactor, walkDirectories, incremental, false, null);
+    }
+
+    /**
+     * @return the directory of the scanned project: {@code path} itself if it is a directory, otherwise the directory
+     * that contains it
+     */
+    public Path getProjectRoot() {
+        final Path absolutePath = path.toAbsolutePath().normalize();
+        return (Files.isDirectory(absolutePath) ? absolutePath : Optional.ofNullable(absolutePath.getParent()).orElse(absolutePath));
+    }
+
+    /**
+     * @param pool where to parse POMs, or {@code null} to parse them on threads of the scan's own; a long-lived pool
+     *             keeps each thread's parsers warm from one scan to the next
+     */
+    public ScanPipeline.Source newSource(ForkJoinPool pool) {
+        return scannedModuleConsumer -> {
+            final ScanState scanState = (incremental ? ScanState.forProject(path) : null);
+            // One resolver for the whole scan, so that modules share the POMs they have in common.
+            final PomModelResolver modelResolver = (transitive ? PomModelResolver.builder().withRemoteRepository(pomRepositoryUrl).build() : null);
+            // Fetching POMs blocks on the network, so it gets threads of its own rather than the parsing pool's.
+            final DependencyGraphResolver graphResolver = (transitive ? DependencyGraphResolver.builder(modelResolver).build() : null);
+            final Consumer<ReactorModule> moduleConsumer = (transitive ? withTransitiveDependencies(scannedModuleConsumer, graphResolver) : scannedModuleConsumer);
+            try {
+                if (reactor) {
+                    ReactorScanner.builder(path)
+                        .withWalkDirectories(walkDirectories)
+                        .withScanState(scanState)
+                        .withPool(pool)
+                        .withModelResolver(modelResolver)
+                        .build()
+                        .scan(moduleConsumer);
+                } else {
+                    final Map<String, DependencyInfo> dependencies = (pool == null ? scanPom(scanState, modelResolver) : scanPomOn(pool, scanState, modelResolver));
+                    moduleConsumer.accept(new ReactorModule(path.toString(), path, dependencies));
+                }
+            } finally {
+                if (graphResolver != null) {
+                    graphResolver.close();
+                }
+            }
+            if (scanState != null) {
+                scanState.save();
+            }
+        };
+    }
+
+    private static Consumer<ReactorModule> withTransitiveDependencies(Consumer<ReactorModule> moduleConsumer, DependencyGraphResolver graphResolver) {
+        return module -> {
+            final DependencyGraph graph = graphResolver.resolve(module);
+            log.debug("{}: {} direct and {} transitive dependencies", module.name(), module.dependencies().size(), graph.getTransitiveCount());
+            moduleConsumer.accept(new ReactorModule(module.name(), module.pomFile(), graph.getDependencies()));
+        };
+    }
+
+    private Map<String, DependencyInfo> scanPomOn(ForkJoinPool pool, ScanState scanState, PomModelResolver modelResolver) throws Exception {
+        try {
+            return pool.submit(() -> scanPom(scanState, modelResolver)).get();
+        } catch (ExecutionException ex) {
+            // The pool wraps checked exceptions in plain RuntimeExceptions, possibly more than once.
+            Throwable cause = ex.getCause();
+            while (cause.getClass() == RuntimeException.class && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw ex;
+        }
+    }
+
+    private Map<String, DependencyInfo> scanPom(ScanState scanState, PomModelResolver modelResolver) throws IOException, SAXException {
+        final Optional<ScanState.Entry> unchanged = Optional.ofNullable(scanState).flatMap(state -> state.getUnchanged(path));
+        if (unchanged.isPresent()) {
+            log.debug("{} unchanged since the last scan", path);
+            return unchanged.get().dependencies();
+        }
+        final DefaultPomScanner pomScanner = DefaultPomScanner.builder(path)
+            .withModelResolver(modelResolver)
+            .build();
+        final Map<String, DependencyInfo> dependencyMap = pomScanner.scanDependencyInfo();
+        if (scanState != null) {
+            scanState.record(pomScanner, dependencyMap, List.of());
+        }
+        return dependencyMap;
+    }
+}
@@ -0,0 +1,556 @@
+package com.witcraft.dependencyscan;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * Serves scans over HTTP from a long-running process, so that repeated scans skip JVM startup and find the XML
+ * parsers, HTTP connections and version caches already warm. The cache entries of the artifacts requested most are
+ * also refreshed in the background, see {@link RefreshingMvnRepository}.
+ * <ul>
+ *     <li>{@code POST /scan?path=<absolute path>} scans and responds with the report as it is produced. Optional
+ *     parameters: {@code reactor}, {@code walk}, {@code incremental} and {@code transitive}
+ *     ({@code true}/{@code false}), {@code format} (a {@link ReportFormat} name, {@code json} by default),
+ *     {@code repository} (a repository location, the server's default otherwise) and {@code pomRepository} (where
+ *     to fetch the POMs of transitive dependencies, Maven Central by default, or empty for none).</li>
+ *     <li>{@code GET /health} describes the server.</li>
+ *     <li>{@code POST /shutdown} stops it.</li>
+ * </ul>
+ * The server binds to the loopback address by default, since it reads whatever POM a request names. For the same
+ * reason it refuses requests that come from a web page: those sent with an {@code Origin} header, and those whose
+ * {@code Host} is neither a loopback name nor the bind address, which is how a DNS rebinding attack reaches it. It
+ * also keeps at most {@link Builder#withMaxRepositories(int) maxRepositories} repository stacks besides the default
+ * one, each with its own connections and refresh thread, and rejects scans that name another location once that many
+ * are open.
+ */
+@Log4j2
+public final class ScanServer {
+    public static final int DEFAULT_PORT = 7117;
+
+    public static final int DEFAULT_MAX_CONCURRENT_SCANS = 4;
+
+    public static final int DEFAULT_MAX_REPOSITORIES = 4;
+
+    public static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final Pattern LOOPBACK_HOST = Pattern.compile("localhost|127(\\.\\d{1,3}){3}|\\[::1]");
+
+    private static final AtomicInteger SERVER_COUNT = new AtomicInteger();
+
+    private final InetSocketAddress address;
+
+    private final int maxConcurrentScans;
+
+    private final String defaultRepositoryLocation;
+
+    private final int maxRepositories;
+
+    private final Duration writeTimeout;
+
+    private final ForkJoinPool parserPool;
+
+    private final Map<String, RepositoryStack> repositories = new ConcurrentHashMap<>();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private final Counter scanCounter;
+
+    private final Counter errorCounter;
+
+    private final Timer scanTimer;
+
+    private HttpServer httpServer;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService watchdog;
+
+    private ScanServer(Builder builder) {
+        this.address = new InetSocketAddress(builder.bindAddress, builder.port);
+        this.maxConcurrentScans = builder.maxConcurrentScans;
+        this.defaultRepositoryLocation = builder.defaultRepositoryLocation;
+        this.maxRepositories = builder.maxRepositories;
+        this.writeTimeout = builder.writeTimeout;
+        this.parserPool = new ForkJoinPool(builder.parallelism);
+        this.scanCounter = builder.metrics.counter("server.scans");
+        this.errorCounter = builder.metrics.counter("server.errors");
+        this.scanTimer = builder.metrics.timer("server.scan");
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public synchronized void start() throws IOException {
+        if (httpServer != null) {
+            throw new IllegalStateException("Already started");
+        }
+        final int serverId = SERVER_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(maxConcurrentScans, runnable -> {
+            final Thread thread = new Thread(runnable, "scan-server-%d-%d".formatted(serverId, threadCount.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "scan-server-%d-watchdog".formatted(serverId));
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer = HttpServer.create(address, 0);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/scan", exchange -> handle(exchange, "POST", this::scan));
+        httpServer.createContext("/health", exchange -> handle(exchange, "GET", this::health));
+        httpServer.createContext("/shutdown", exchange -> handle(exchange, "POST", this::shutdown));
+        httpServer.start();
+        log.info("Serving scans on http://{}:{}/", address.getHostString(), getPort());
+    }
+
+    /**
+     * Stops accepting requests, waits a moment for the scans in progress and releases the server's threads.
+     */
+    public synchronized void stop() {
+        if (httpServer == null || stopped.getCount() == 0) {
+            return;
+        }
+        httpServer.stop(1);
+        executor.shutdown();
+        watchdog.shutdownNow();
+        parserPool.shutdown();
+        repositories.values().forEach(RepositoryStack::close);
+        stopped.countDown();
+        log.info("Scan server stopped");
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * @return the port the server listens on, which is only known after {@link #start()} when it was configured as
+     * {@code 0}
+     */
+    public synchronized int getPort() {
+        return (httpServer != null ? httpServer.getAddress().getPort() : address.getPort());
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) {
+            if (!method.equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendText(exchange, 405, "Use " + method);
+                return;
+            }
+            if (exchange.getRequestHeaders().containsKey("Origin") || !isAllowedHost(exchange.getRequestHeaders().getFirst("Host"))) {
+                log.atWarn().log("Refused {} from {}: Host {}, Origin {}",
+                    exchange.getRequestURI().getPath(),
+                    exchange.getRemoteAddress(),
+                    exchange.getRequestHeaders().getFirst("Host"),
+                    exchange.getRequestHeaders().getFirst("Origin")
+                );
+                sendText(exchange, 403, "Only local, non-browser clients may use this server");
+                return;
+            }
+            handler.handle(exchange);
+        } catch (RuntimeException ex) {
+            log.atError().withThrowable(ex).log("Failed to handle {}", exchange.getRequestURI());
+            throw ex;
+        }
+    }
+
+    private void scan(HttpExchange exchange) throws IOException {
+        final Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+        final ScanRequest request;
+        final ReportFormat format;
+        final RepositoryStack repositoryStack;
+        try {
+            final Path path = Path.of(Optional.ofNullable(parameters.get("path")).orElseThrow(() -> new IllegalArgumentException("path is required")));
+            if (!path.isAbsolute()) {
+                throw new IllegalArgumentException("path must be absolute: " + path);
+            }
+            request = new ScanRequest(
+                path.normalize(),
+                Boolean.parseBoolean(parameters.get("reactor")),
+                Boolean.parseBoolean(parameters.get("walk")),
+                Boolean.parseBoolean(parameters.get("incremental")),
+                Boolean.parseBoolean(parameters.get("transitive")),
+                parameters.getOrDefault("pomRepository", MetadataMvnRepository.DEFAULT_BASE_URL)
+            );
+            format = ReportFormat.forName(parameters.getOrDefault("format", ReportFormat.JSON.getName()));
+            repositoryStack = getRepositoryStack(parameters.getOrDefault("repository", defaultRepositoryLocation));
+        } catch (IllegalArgumentException ex) {
+            sendText(exchange, 400, ex.getMessage());
+            return;
+        }
+
+        scanCounter.increment();
+        final long startedAt = System.nanoTime();
+        final ScanPipeline pipeline = ScanPipeline.builder(request.newSource(parserPool), repositoryStack.getRepository())
+            .withMaxBatchSize(repositoryStack.getMaxBatchSize())
+            .build();
+        exchange.getResponseHeaders().set("Content-Type", getContentType(format));
+        final ResponseStream responseStream = new ResponseStream(exchange);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(responseStream, StandardCharsets.UTF_8));
+        final ReportWriter reportWriter = format.open(writer, Instant.now(), request.getProjectRoot());
+        // A client that stops reading would otherwise hold the scan, and through it the lookups, forever.
+        final long checkMillis = Math.max(1, Math.min(writeTimeout.toMillis(), 1000));
+        final ScheduledFuture<?> stallCheck = watchdog.scheduleWithFixedDelay(() -> {
+            if (responseStream.abortIfStalled(writeTimeout)) {
+                log.atWarn().log("Client of the scan of {} stopped reading for {}; cancelling the scan", request.path(), writeTimeout);
+            }
+        }, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        try {
+            pipeline.consume(versionHistory -> {
+                try {
+                    reportWriter.write(versionHistory);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).join();
+            reportWriter.close();
+            writer.close();
+            log.atDebug().log("Scanned {} for a client: {} dependencies", request.path(), pipeline.getUniqueDependencyCount());
+            repositoryStack.logStats();
+        } catch (CompletionException | IOException ex) {
+            errorCounter.increment();
+            final Throwable cause = (ex instanceof CompletionException ? Optional.ofNullable(ex.getCause()).orElse(ex) : ex);
+            log.atError().withThrowable(cause).log("Scan of {} failed", request.path());
+            if (!responseStream.isCommitted()) {
+                sendText(exchange, 500, cause.toString());
+            } else {
+                // The status has been sent, so the failure can only be reported in the body. This ends the report
+                // with a line a JSON lines reader can recognise, and leaves the other formats unparseable, as a
+                // truncated report should be.
+                writeError(writer, cause);
+            }
+        } finally {
+            stallCheck.cancel(false);
+            if (responseStream.isAborted()) {
+                // The handler thread goes back to the pool; it must not carry the watchdog's interrupt into the next scan.
+                Thread.interrupted();
+            }
+            scanTimer.recordSince(startedAt);
+        }
+    }
+
+    private RepositoryStack getRepositoryStack(String location) {
+        synchronized (repositories) {
+            final RepositoryStack repositoryStack = repositories.get(location);
+            if (repositoryStack != null) {
+                return repositoryStack;
+            }
+            final long otherCount = repositories.keySet().stream().filter(not(defaultRepositoryLocation::equals)).count();
+            if (!location.equals(defaultRepositoryLocation) && otherCount >= maxRepositories) {
+                throw new IllegalArgumentException("This server already serves %d repositories besides its default, the most it allows: %s".formatted(maxRepositories, repositories.keySet()));
+            }
+            final RepositoryStack newStack = RepositoryStack.forLocation(location, true);
+            repositories.put(location, newStack);
+            return newStack;
+        }
+    }
+
+    // The bind address is accepted as well, so that a server bound to another interface on purpose stays usable.
+    private boolean isAllowedHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        final int portSeparator = host.lastIndexOf(':');
+        final String hostName = (portSeparator > host.lastIndexOf(']') ? host.substring(0, portSeparator) : host).toLowerCase(Locale.ROOT);
+        return LOOPBACK_HOST.matcher(hostName).matches() || hostName.equals(address.getHostString().toLowerCase(Locale.ROOT));
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        final StringWriter body = new StringWriter();
+        final JsonWriter json = new JsonWriter(body);
+        json.beginObject()
+            .name("status").value("up")
+            .name("scans").value(scanCounter.getCount())
+            .name("errors").value(errorCounter.getCount())
+            .name("repositories").beginArray();
+        for (String location : repositories.keySet()) {
+            json.value(location);
+        }
+        json.endArray()
+            .endObject();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, body.toString());
+    }
+
+    private void shutdown(HttpExchange exchange) throws IOException {
+        sendText(exchange, 202, "Stopping");
+        // Not on this thread: stopping waits for the exchanges in progress, this one included.
+        final Thread stopper = new Thread(this::stop, "scan-server-stop");
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    private static void writeError(Writer writer, Throwable cause) {
+        try {
+            writer.write('\n');
+            new JsonWriter(writer).beginObject()
+                .name("error").value(cause.toString())
+                .endObject();
+            writer.close();
+        } catch (IOException ex) {
+            log.atDebug().log("Could not report the failure to the client: {}", ex.toString());
+        }
+    }
+
+    private static String getContentType(ReportFormat format) {
+        return switch (format) {
+            case JSON_LINES -> "application/x-ndjson";
+            case JSON -> "application/json";
+            case SARIF -> "application/sarif+json";
+        };
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, text + "\n");
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        final Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            final int separator = pair.indexOf('=');
+            final String name = (separator < 0 ? pair : pair.substring(0, separator));
+            final String value = (separator < 0 ? "true" : pair.substring(separator + 1));
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Sends the response headers with the first byte of the body rather than up front, so that a scan failing before
+     * it produces anything can still be answered with an error status. Also remembers which thread is writing and
+     * since when, so that a write stuck on a client that stopped reading can be {@link #abortIfStalled aborted}.
+     */
+    private static final class ResponseStream extends OutputStream {
+        private final HttpExchange exchange;
+
+        private OutputStream body;
+
+        private volatile Thread writingThread;
+
+        private volatile long writeStartedAt;
+
+        private volatile boolean aborted;
+
+        private ResponseStream(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        boolean isCommitted() {
+            return body != null;
+        }
+
+        boolean isAborted() {
+            return aborted;
+        }
+
+        /**
+         * Interrupts a write that has been blocked for longer than {@code timeout}. The connection is a blocking
+         * channel, so the interrupt closes it and the write fails, which in turn cancels the scan.
+         *
+         * @return whether a write was aborted
+         */
+        boolean abortIfStalled(Duration timeout) {
+            final Thread thread = writingThread;
+            if (thread == null || System.nanoTime() - writeStartedAt < timeout.toNanos()) {
+                return false;
+            }
+            aborted = true;
+            thread.interrupt();
+            return true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            tracked(() -> commit().write(b));
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                tracked(() -> commit().write(bytes, offset, length));
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (body != null) {
+                tracked(body::flush);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            tracked(() -> commit().close());
+        }
+
+        private void tracked(Write write) throws IOException {
+            writeStartedAt = System.nanoTime();
+            writingThread = Thread.currentThread();
+            try {
+                write.run();
+            } finally {
+                writingThread = null;
+            }
+        }
+
+        private OutputStream commit() throws IOException {
+            if (body == null) {
+                exchange.sendResponseHeaders(200, 0);
+                body = exchange.getResponseBody();
+            }
+            return body;
+        }
+
+        @FunctionalInterface
+        private interface Write {
+            void run() throws IOException;
+        }
+    }
+
+    public static final class Builder {
+        private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+
+        private int port = DEFAULT_PORT;
+
+        private int maxConcurrentScans = DEFAULT_MAX_CONCURRENT_SCANS;
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        private String defaultRepositoryLocation = MvnRepository.SEARCH_LOCATION;
+
+        private int maxRepositories = DEFAULT_MAX_REPOSITORIES;
+
+        private Duration writeTimeout = DEFAULT_WRITE_TIMEOUT;
+
+        private MetricsRegistry metrics = MetricsRegistry.global();
+
+        private Builder() {
+        }
+
+        public ScanServer build() {
+            return new ScanServer(this);
+        }
+
+        public Builder withBindAddress(InetAddress bindAddress) {
+            this.bindAddress = Objects.requireNonNull(bindAddress);
+            return this;
+        }
+
+        /**
+         * @param port the port to listen on, or {@code 0} for any free port
+         */
+        public Builder withPort(int port) {
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException("port must be between 0 and 65535");
+            }
+            this.port = port;
+            return this;
+        }
+
+        public Builder withMaxConcurrentScans(int maxConcurrentScans) {
+            if (maxConcurrentScans < 1) {
+                throw new IllegalArgumentException("maxConcurrentScans must be at least 1");
+            }
+            this.maxConcurrentScans = maxConcurrentScans;
+            return this;
+        }
+
+        /**
+         * @param parallelism how many POMs are parsed at once, across all scans
+         */
+        public Builder withParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder withDefaultRepositoryLocation(String defaultRepositoryLocation) {
+            this.defaultRepositoryLocation = Objects.requireNonNull(defaultRepositoryLocation);
+            return this;
+        }
+
+        /**
+         * @param maxRepositories how many repository locations besides the default one scans may use in all
+         */
+        public Builder withMaxRepositories(int maxRepositories) {
+            if (maxRepositories < 1) {
+                throw new IllegalArgumentException("maxRepositories must be at least 1");
+            }
+            this.maxRepositories = maxRepositories;
+            return this;
+        }
+
+        /**
+         * @param writeTimeout how long writing a report to a client may block before the scan is cancelled
+         */
+        public Builder withWriteTimeout(Duration writeTimeout) {
+            if (writeTimeout.isNegative() || writeTimeout.isZero()) {
+                throw new IllegalArgumentException("writeTimeout must be positive");
+            }
+            this.writeTimeout = writeTimeout;
+            return this;
+        }
+
+        public Builder withMetrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.witcraft.dependencyscan;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers, per scanned POM, the content hash of the POM, of every parent POM it inherits from and of every BOM it
+ * imports, and of the system properties and environment variables those POMs reference, along with the dependencies
+ * and modules that were resolved from it, so that an unchanged POM can be reused without parsing it.
+ */
+@Log4j2
+public final class ScanState {
+    public static final Path DEFAULT_STATE_DIRECTORY = Path.of(System.getProperty("user.home"), ".dependency-scan", "state");
+
+    private static final String FILE_EXTENSION = ".state";
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private static final String KEY_POM = "pom=";
+
+    private static final String KEY_INPUT = "input=";
+
+    private static final String KEY_OVERRIDE = "override=";
+
+    private static final String KEY_MODULE = "module=";
+
+    private static final String KEY_DEPENDENCY = "dependency=";
+
+    private static final String UNSET = "-";
+
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^${}]+)}");
+
+    private final Path stateFile;
+
+    private final Map<Path, Entry> entries;
+
+    private final Set<Path> touched;
+
+    private ScanState(Path stateFile, Map<Path, Entry> entries) {
+        this.stateFile = stateFile;
+        this.entries = new ConcurrentHashMap<>(entries);
+        this.touched = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * @return the state recorded for the build rooted at {@code rootPom}, stored under {@link #DEFAULT_STATE_DIRECTORY}
+     */
+    public static ScanState forProject(Path rootPom) {
+        final String key = rootPom.toAbsolutePath().normalize().toString();
+        return load(DEFAULT_STATE_DIRECTORY.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8) + FILE_EXTENSION));
+    }
+
+    public static ScanState load(Path stateFile) {
+        return new ScanState(stateFile, readEntries(stateFile));
+    }
+
+    /**
+     * @return the recorded scan of {@code pomFile}, if none of its inputs changed since it was recorded
+     */
+    public Optional<Entry> getUnchanged(Path pomFile) {
+        final Path key = pomFile.toAbsolutePath().normalize();
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        for (Map.Entry<Path, String> input : entry.inputs().entrySet()) {
+            if (!Objects.equals(input.getValue(), hashFile(input.getKey()))) {
+                log.atDebug().log("{} changed since the last scan", input.getKey());
+                return Optional.empty();
+            }
+        }
+        for (Map.Entry<String, String> override : entry.overrides().entrySet()) {
+            if (!Objects.equals(override.getValue(), hashOverride(override.getKey()))) {
+                log.atDebug().log("${{}} changed since the last scan", override.getKey());
+                return Optional.empty();
+            }
+        }
+        touched.add(key);
+        return Optional.of(entry);
+    }
+
+    public void record(DefaultPomScanner scanner, Map<String, DependencyInfo> dependencies, List<String> modules) {
+        final Path key = scanner.getFile().toAbsolutePath().normalize();
+        final Map<Path, String> inputs = new LinkedHashMap<>();
+        final Map<String, String> overrides = new TreeMap<>();
+        for (Path pomFile : scanner.getInputFiles()) {
+            final byte[] content = readFile(pomFile);
+            inputs.put(pomFile, content == null ? null : hash(content));
+            if (content != null) {
+                final Matcher matcher = PROPERTY_REFERENCE.matcher(new String(content, StandardCharsets.UTF_8));
+                while (matcher.find()) {
+                    overrides.computeIfAbsent(matcher.group(1), ScanState::hashOverride);
+                }
+            }
+        }
+        inputs.put(key, scanner.getContentHash());
+        entries.put(key, new Entry(
+            Collections.unmodifiableMap(inputs),
+            Collections.unmodifiableMap(new LinkedHashMap<>(overrides)),
+            Collections.unmodifiableMap(new LinkedHashMap<>(dependencies)),
+            List.copyOf(modules)
+        ));
+        touched.add(key);
+    }
+
+    /**
+     * Writes the entries that were reused or recorded since this state was loaded; POMs that were not part of this
+     * scan are dropped.
+     */
+    public void save() {
+        try {
+            Files.createDirectories(Objects.requireNonNull(stateFile.toAbsolutePath().getParent()));
+            final Path tempFile = Files.createTempFile(stateFile.toAbsolutePath().getParent(), ".", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Path pomFile : touched.stream().sorted().toList()) {
+                    final Entry entry = entries.get(pomFile);
+                    writeLine(writer, KEY_POM, pomFile.toString());
+                    for (Map.Entry<Path, String> input : entry.inputs().entrySet()) {
+                        writeLine(writer, KEY_INPUT, Objects.requireNonNullElse(input.getValue(), UNSET), input.getKey().toString());
+                    }
+                    for (Map.Entry<String, String> override : entry.overrides().entrySet()) {
+                        writeLine(writer, KEY_OVERRIDE, override.getValue(), override.getKey());
+                    }
+                    for (String module : entry.modules()) {
+                        writeLine(writer, KEY_MODULE, module);
+                    }
+                    for (DependencyInfo dependency : entry.dependencies().values()) {
+                        writeLine(
+                            writer,
+                            KEY_DEPENDENCY,
+                            dependency.getGroupId(),
+                            dependency.getArtifactId(),
+                            dependency.getVersion(),
+                            dependency.getScope(),
+                            Optional.ofNullable(dependency.getSource()).map(SourceLocation::path).orElse("")
+                        );
+                    }
+                }
+            }
+            try {
+                Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            log.atError().withThrowable(ex).log("Failed to write scan state {}", stateFile);
+        }
+    }
+
+    public static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance(HASH_ALGORITHM).digest(content));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hashFile(Path file) {
+        return Optional.ofNullable(readFile(file)).map(ScanState::hash).orElse(null);
+    }
+
+    private static byte[] readFile(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the hash of the value a system property or environment variable gives the property {@code name}, or
+     * {@link #UNSET} if neither does
+     */
+    private static String hashOverride(String name) {
+        return PropertyInterpolator.getOverride(name)
+            .map(value -> hash(value.getBytes(StandardCharsets.UTF_8)))
+            .orElse(UNSET);
+    }
+
+    private static void writeLine(BufferedWriter writer, String key, String... values) throws IOException {
+        writer.write(key);
+        writer.write(String.join("\t", values));
+        writer.newLine();
+    }
+
+    private static Map<Path, Entry> readEntries(Path stateFile) {
+        if (!Files.isRegularFile(stateFile)) {
+            return Map.of();
+        }
+        final Map<Path, Entry> entries = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            EntryReader current = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(KEY_POM)) {
+                    if (current != null) {
+                        entries.put(current.pomFile, current.toEntry());
+                    }
+                    current = new EntryReader(Path.of(line.substring(KEY_POM.length())));
+                } else if (current != null) {
+                    current.accept(line);
+                }
+            }
+            if (current != null) {
+                entries.put(current.pomFile, current.toEntry());
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.atWarn().withThrowable(ex).log("Ignoring unreadable scan state {}", stateFile);
+            return Map.of();
+        }
+        return entries;
+    }
+
+    public record Entry(
+        Map<Path, String> inputs,
+        Map<String, String> overrides,
+        Map<String, DependencyInfo> dependencies,
+        List<String> modules
+    ) {
+    }
+
+    private static final class EntryReader {
+        private final Path pomFile;
+
+        private final Map<Path, String> inputs = new LinkedHashMap<>();
+
+        private final Map<String, String> overrides = new LinkedHashMap<>();
+
+        private final Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+
+        private final List<String> modules = new ArrayList<>();
+
+        private EntryReader(Path pomFile) {
+            this.pomFile = pomFile;
+        }
+
+        void accept(String line) {
+            if (line.startsWith(KEY_INPUT)) {
+                final String[] values = line.substring(KEY_INPUT.length()).split("\t", 2);
+                inputs.put(Path.of(values[1]), UNSET.equals(values[0]) ? null : values[0]);
+            } else if (line.startsWith(KEY_OVERRIDE)) {
+                final String[] values = line.substring(KEY_OVERRIDE.length()).split("\t", 2);
+                overrides.put(values[1], values[0]);
+            } else if (line.startsWith(KEY_MODULE)) {
+                modules.add(line.substring(KEY_MODULE.length()));
+            } else if (line.startsWith(KEY_DEPENDENCY)) {
+                final String[] values = line.substring(KEY_DEPENDENCY.length()).split("\t", -1);
+                final DependencyInfo dependency = DependencyInfo.builder()
+                    .withGroupId(values[0])
+                    .withArtifactId(values[1])
+                    .withVersion(values[2])
+                    .withScope(values[3])
+                    .withSource(values[4].isEmpty() ? null : new SourceLocation(pomFile, values[4]))
+                    .build();
+                dependencies.put(dependency.getGroupArtifact(), dependency);
+            } else if (!line.isBlank()) {
+                throw new UncheckedIOException(new IOException("Unexpected line: " + line));
+            }
+        }
+
+        Entry toEntry() {
+            return new Entry(
+                Collections.unmodifiableMap(inputs),
+                Collections.unmodifiableMap(overrides),
+                Collections.unmodifiableMap(dependencies),
+                List.copyOf(modules)
+            );
+        }
+    }
+}
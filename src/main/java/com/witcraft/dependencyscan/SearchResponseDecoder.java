@@ -0,0 +1,16 @@
+package com.witcraft.dependencyscan;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface SearchResponseDecoder {
+    static SearchResponseDecoder streaming() {
+        return new StaxSearchResponseDecoder();
+    }
+
+    static SearchResponseDecoder dom() {
+        return new DomSearchResponseDecoder();
+    }
+
+    void decode(InputStream body, SearchResponseHandler handler) throws IOException;
+}
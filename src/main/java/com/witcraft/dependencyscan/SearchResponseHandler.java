@@ -0,0 +1,7 @@
+package com.witcraft.dependencyscan;
+
+public interface SearchResponseHandler {
+    void onResult(int numFound, int start);
+
+    boolean onDocument(String groupId, String artifactId, String version, long timestamp);
+}
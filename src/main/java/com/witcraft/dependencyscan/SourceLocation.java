@@ -0,0 +1,20 @@
+package com.witcraft.dependencyscan;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Where a dependency was declared: the POM file and the position of the declaring element within it,
+ * e.g. {@code /project/dependencies/dependency[3]}.
+ */
+public record SourceLocation(Path pomFile, String path) {
+    public SourceLocation {
+        Objects.requireNonNull(pomFile, "pomFile");
+        Objects.requireNonNull(path, "path");
+    }
+
+    @Override
+    public String toString() {
+        return "%s#%s".formatted(pomFile, path);
+    }
+}
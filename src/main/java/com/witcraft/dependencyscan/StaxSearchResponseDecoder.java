@@ -0,0 +1,81 @@
+package com.witcraft.dependencyscan;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+
+final class StaxSearchResponseDecoder implements SearchResponseDecoder {
+
+    StaxSearchResponseDecoder() {
+    }
+
+    @Override
+    public void decode(InputStream body, SearchResponseHandler handler) throws IOException {
+        try {
+            final XMLStreamReader reader = XmlUtil.newXmlStreamReader(body);
+            try {
+                decode(reader, handler);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException("Malformed search response", ex);
+        }
+    }
+
+    private static void decode(XMLStreamReader reader, SearchResponseHandler handler) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "result".equals(reader.getLocalName()) && "response".equals(reader.getAttributeValue(null, "name"))) {
+                handler.onResult(parseInt(reader.getAttributeValue(null, "numFound")), parseInt(reader.getAttributeValue(null, "start")));
+                decodeDocuments(reader, handler);
+                return;
+            }
+        }
+    }
+
+    private static void decodeDocuments(XMLStreamReader reader, SearchResponseHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!"doc".equals(reader.getLocalName())) {
+                skipElement(reader);
+                continue;
+            }
+
+            String groupId = null;
+            String artifactId = null;
+            String version = null;
+            long timestamp = 0L;
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                final String fieldName = reader.getAttributeValue(null, "name");
+                switch (fieldName == null ? "" : fieldName) {
+                    case "g" -> groupId = reader.getElementText().trim();
+                    case "a" -> artifactId = reader.getElementText().trim();
+                    case "v" -> version = reader.getElementText().trim();
+                    case "timestamp" -> timestamp = Long.parseLong(reader.getElementText().trim());
+                    default -> skipElement(reader);
+                }
+            }
+
+            if (version != null && !handler.onDocument(groupId, artifactId, version, timestamp)) {
+                return;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static int parseInt(String value) {
+        return (value == null || value.isBlank() ? 0 : Integer.parseInt(value.trim()));
+    }
+}
@@ -0,0 +1,68 @@
+package com.witcraft.dependencyscan;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Durations of an operation, such as parsing a POM or waiting for an HTTP response, kept as a {@link Histogram} of
+ * nanoseconds.
+ */
+public final class Timer implements Metric {
+    @Getter
+    private final String name;
+
+    @Getter
+    private final Histogram histogram;
+
+    Timer(String name) {
+        this.name = name;
+        this.histogram = new Histogram(name);
+    }
+
+    public void record(Duration duration) {
+        histogram.record(duration.toNanos());
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a value previously read from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        histogram.record(System.nanoTime() - startNanos);
+    }
+
+    public <T> T time(Supplier<T> operation) {
+        final long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            recordSince(start);
+        }
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    public Duration getTotal() {
+        return Duration.ofNanos(histogram.getSum());
+    }
+
+    public Duration getMean() {
+        return Duration.ofNanos((long) histogram.getMean());
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(histogram.getMax());
+    }
+
+    public Duration getPercentile(double percentile) {
+        return Duration.ofNanos(histogram.getPercentile(percentile));
+    }
+
+    @Override
+    public String toString() {
+        return "%s(count=%d, total=%s, mean=%s, p95=%s, max=%s)".formatted(name, getCount(), getTotal(), getMean(), getPercentile(95), getMax());
+    }
+}
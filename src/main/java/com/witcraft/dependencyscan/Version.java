@@ -0,0 +1,391 @@
+package com.witcraft.dependencyscan;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parsed Maven version, ordered the way Maven's {@code ComparableVersion} orders versions.
+ */
+public final class Version implements Comparable<Version> {
+    private static final int MAX_INTERNED = 65_536;
+
+    // Least recently used versions go first, so a large scan keeps reusing the versions it meets most.
+    private static final Map<String, Version> INTERNED = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Version> eldest) {
+            return size() > MAX_INTERNED;
+        }
+    });
+
+    private static final List<String> QUALIFIERS = List.of("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+
+    private static final String RELEASE_VERSION_INDEX = String.valueOf(QUALIFIERS.indexOf(""));
+
+    private final String value;
+
+    private final ListItem items;
+
+    private final String canonical;
+
+    private final int hash;
+
+    private final long[] components;
+
+    private final int componentCount;
+
+    private final String suffix;
+
+    private Version(String value) {
+        this.value = value;
+        this.items = parseItems(value);
+        this.canonical = items.toString();
+        this.hash = canonical.hashCode();
+
+        final long[] components = new long[3];
+        int componentCount = 0;
+        int index = 0;
+        final int length = value.length();
+        while (componentCount < components.length && index < length && isDigit(value.charAt(index))) {
+            final int start = index;
+            while (index < length && isDigit(value.charAt(index))) {
+                index++;
+            }
+            if (index - start > 18) {
+                index = start;
+                break;
+            }
+            components[componentCount++] = Long.parseLong(value, start, index, 10);
+            if (index + 1 < length && value.charAt(index) == '.' && isDigit(value.charAt(index + 1)) && componentCount < components.length) {
+                index++;
+            } else {
+                break;
+            }
+        }
+        this.components = components;
+        this.componentCount = componentCount;
+        this.suffix = (index < length ? value.substring(index) : null);
+    }
+
+    public static Version parse(String value) {
+        Objects.requireNonNull(value, "value");
+        final Version interned = INTERNED.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        // Parsed outside the lock; if another thread interned the same value meanwhile, its instance wins.
+        final Version version = new Version(value);
+        return Objects.requireNonNullElse(INTERNED.putIfAbsent(value, version), version);
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public long getMajor() {
+        return components[0];
+    }
+
+    public long getMinor() {
+        return components[1];
+    }
+
+    public long getPatch() {
+        return components[2];
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public boolean isPrerelease() {
+        return items.isPrerelease();
+    }
+
+    public String getCanonical() {
+        return canonical;
+    }
+
+    @Override
+    public int compareTo(Version other) {
+        if (this == other) {
+            return 0;
+        }
+        return items.compareTo(other.items);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof Version version && hash == version.hash && canonical.equals(version.canonical);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    private static boolean isDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static ListItem parseItems(String value) {
+        final String version = value.toLowerCase(Locale.ROOT);
+        final ListItem root = new ListItem();
+        final Deque<ListItem> stack = new ArrayDeque<>();
+        ListItem list = root;
+        stack.push(list);
+
+        boolean digit = false;
+        int start = 0;
+        for (int i = 0; i < version.length(); i++) {
+            final char ch = version.charAt(i);
+            if (ch == '.') {
+                list.add(i == start ? NumberItem.ZERO : parseItem(digit, version.substring(start, i)));
+                start = i + 1;
+            } else if (ch == '-') {
+                list.add(i == start ? NumberItem.ZERO : parseItem(digit, version.substring(start, i)));
+                start = i + 1;
+                list = list.addList();
+                stack.push(list);
+            } else if (isDigit(ch)) {
+                if (!digit && i > start) {
+                    list.add(new StringItem(version.substring(start, i), true));
+                    start = i;
+                    list = list.addList();
+                    stack.push(list);
+                }
+                digit = true;
+            } else {
+                if (digit && i > start) {
+                    list.add(parseItem(true, version.substring(start, i)));
+                    start = i;
+                    list = list.addList();
+                    stack.push(list);
+                }
+                digit = false;
+            }
+        }
+        if (version.length() > start) {
+            list.add(parseItem(digit, version.substring(start)));
+        }
+        while (!stack.isEmpty()) {
+            stack.pop().normalize();
+        }
+        return root;
+    }
+
+    private static Item parseItem(boolean digit, String token) {
+        return (digit ? NumberItem.of(token) : new StringItem(token, false));
+    }
+
+    private interface Item {
+        int compareTo(Item item);
+
+        boolean isNull();
+
+        boolean isPrerelease();
+    }
+
+    private static final class NumberItem implements Item {
+        static final NumberItem ZERO = new NumberItem(0L, null);
+
+        private final long value;
+
+        private final BigInteger bigValue;
+
+        private NumberItem(long value, BigInteger bigValue) {
+            this.value = value;
+            this.bigValue = bigValue;
+        }
+
+        static NumberItem of(String digits) {
+            int start = 0;
+            while (start < digits.length() - 1 && digits.charAt(start) == '0') {
+                start++;
+            }
+            if (digits.length() - start <= 18) {
+                return new NumberItem(Long.parseLong(digits, start, digits.length(), 10), null);
+            }
+            return new NumberItem(0L, new BigInteger(digits.substring(start)));
+        }
+
+        @Override
+        public int compareTo(Item item) {
+            if (item == null) {
+                return (isNull() ? 0 : 1);
+            }
+            if (item instanceof NumberItem number) {
+                if (bigValue == null && number.bigValue == null) {
+                    return Long.compare(value, number.value);
+                }
+                return toBigInteger().compareTo(number.toBigInteger());
+            }
+            return 1;
+        }
+
+        private BigInteger toBigInteger() {
+            return (bigValue == null ? BigInteger.valueOf(value) : bigValue);
+        }
+
+        @Override
+        public boolean isNull() {
+            return bigValue == null && value == 0L;
+        }
+
+        @Override
+        public boolean isPrerelease() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return (bigValue == null ? Long.toString(value) : bigValue.toString());
+        }
+    }
+
+    private static final class StringItem implements Item {
+        private final String value;
+
+        private final String comparable;
+
+        StringItem(String value, boolean followedByDigit) {
+            String qualifier = value;
+            if (followedByDigit && qualifier.length() == 1) {
+                qualifier = switch (qualifier.charAt(0)) {
+                    case 'a' -> "alpha";
+                    case 'b' -> "beta";
+                    case 'm' -> "milestone";
+                    default -> qualifier;
+                };
+            }
+            qualifier = switch (qualifier) {
+                case "ga", "final", "release" -> "";
+                case "cr" -> "rc";
+                default -> qualifier;
+            };
+            this.value = qualifier;
+            final int index = QUALIFIERS.indexOf(qualifier);
+            this.comparable = (index < 0 ? QUALIFIERS.size() + "-" + qualifier : String.valueOf(index));
+        }
+
+        @Override
+        public int compareTo(Item item) {
+            if (item == null) {
+                return comparable.compareTo(RELEASE_VERSION_INDEX);
+            }
+            if (item instanceof StringItem string) {
+                return comparable.compareTo(string.comparable);
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean isNull() {
+            return comparable.equals(RELEASE_VERSION_INDEX);
+        }
+
+        @Override
+        public boolean isPrerelease() {
+            return comparable.compareTo(RELEASE_VERSION_INDEX) < 0;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+
+    private static final class ListItem implements Item {
+        private final List<Item> items = new ArrayList<>(4);
+
+        void add(Item item) {
+            items.add(item);
+        }
+
+        ListItem addList() {
+            final ListItem list = new ListItem();
+            items.add(list);
+            return list;
+        }
+
+        // Drops trailing null items so that 1.0.0 equals 1 and 1-final equals 1.
+        void normalize() {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                final Item item = items.get(i);
+                if (item.isNull()) {
+                    items.remove(i);
+                } else if (!(item instanceof ListItem)) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Item item) {
+            if (item == null) {
+                return (items.isEmpty() ? 0 : items.get(0).compareTo(null));
+            }
+            if (item instanceof NumberItem) {
+                return -1;
+            }
+            if (item instanceof StringItem) {
+                return 1;
+            }
+
+            final Iterator<Item> left = items.iterator();
+            final Iterator<Item> right = ((ListItem) item).items.iterator();
+            while (left.hasNext() || right.hasNext()) {
+                final Item l = (left.hasNext() ? left.next() : null);
+                final Item r = (right.hasNext() ? right.next() : null);
+                final int result = (l == null ? (r == null ? 0 : -r.compareTo(null)) : l.compareTo(r));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public boolean isNull() {
+            return items.isEmpty();
+        }
+
+        @Override
+        public boolean isPrerelease() {
+            for (Item item : items) {
+                if (item.isPrerelease()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder buffer = new StringBuilder();
+            for (Item item : items) {
+                if (!buffer.isEmpty()) {
+                    buffer.append(item instanceof ListItem ? '-' : '.');
+                }
+                buffer.append(item);
+            }
+            return buffer.toString();
+        }
+    }
+}
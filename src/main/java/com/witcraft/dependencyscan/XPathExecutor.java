@@ -10,6 +10,8 @@ public interface XPathExecutor {
         return new DefaultXPathExecutor();
     }
 
+    CompiledXPath compile(String xPath);
+
     Node xPathNode(Node context, String xPath);
 
     Node xPathNodeRequired(Node context, String xPath, String message);
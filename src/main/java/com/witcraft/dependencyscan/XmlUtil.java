@@ -2,52 +2,147 @@ package com.witcraft.dependencyscan;
 
 import lombok.extern.log4j.Log4j2;
 import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
+import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
 import java.nio.file.Path;
 
 @Log4j2
 public final class XmlUtil {
 
-    private static final DocumentBuilder DOCUMENT_BUILDER = initDocumentBuilder();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = initDocumentBuilderFactory();
+
+    // DocumentBuilder is not thread-safe, and XMLInputFactory is only documented as safe once configured, so each thread gets its own.
+    private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = ThreadLocal.withInitial(XmlUtil::initDocumentBuilder);
+
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = ThreadLocal.withInitial(XmlUtil::initXmlInputFactory);
+
+    private static final Timer PARSE_TIMER = MetricsRegistry.global().timer("xml.parse");
+
+    private static final Counter PARSE_ERROR_COUNTER = MetricsRegistry.global().counter("xml.parseErrors");
+
+    private static final ErrorHandler ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(SAXParseException exception) {
+            log.atDebug().withThrowable(exception).log();
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            throw exception;
+        }
+    };
+
+    private static DocumentBuilderFactory initDocumentBuilderFactory() {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setValidating(false);
+        factory.setXIncludeAware(false);
+        factory.setExpandEntityReferences(false);
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+        } catch (ParserConfigurationException | IllegalArgumentException ex) {
+            log.atWarn().withThrowable(ex).log("XML parser does not support a hardening option");
+        }
+        return factory;
+    }
 
     private static DocumentBuilder initDocumentBuilder() {
         try {
-            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            final DocumentBuilder documentBuilder;
+            synchronized (DOCUMENT_BUILDER_FACTORY) {
+                documentBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            }
+            documentBuilder.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader("")));
+            documentBuilder.setErrorHandler(ERROR_HANDLER);
+            return documentBuilder;
         } catch (ParserConfigurationException ex) {
             log.atError().withThrowable(ex).log();
         }
         return null;
     }
 
+    private static XMLInputFactory initXmlInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
     private XmlUtil() {
     }
 
     public static Document loadXmlDocument(Path path) {
-        if (DOCUMENT_BUILDER != null) {
+        final DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+        if (documentBuilder != null) {
+            final long startedAt = System.nanoTime();
             try {
-                return DOCUMENT_BUILDER.parse(path.toFile());
+                return documentBuilder.parse(path.toFile());
             } catch (SAXException | IOException ex) {
                 log.atError().withThrowable(ex).log();
+                PARSE_ERROR_COUNTER.increment();
+            } finally {
+                PARSE_TIMER.recordSince(startedAt);
             }
         }
         return null;
     }
 
     public static Document loadXmlDocument(String content) {
-        if (DOCUMENT_BUILDER != null) {
+        final DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+        if (documentBuilder != null) {
+            final long startedAt = System.nanoTime();
             try {
-                return DOCUMENT_BUILDER.parse(new InputSource(new StringReader(content)));
+                return documentBuilder.parse(new InputSource(new StringReader(content)));
             } catch (SAXException | IOException ex) {
                 log.atError().withThrowable(ex).log();
+                PARSE_ERROR_COUNTER.increment();
+            } finally {
+                PARSE_TIMER.recordSince(startedAt);
             }
         }
         return null;
     }
+
+    public static Document loadXmlDocument(InputStream content) {
+        final DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+        if (documentBuilder != null) {
+            final long startedAt = System.nanoTime();
+            try {
+                return documentBuilder.parse(content);
+            } catch (SAXException | IOException ex) {
+                log.atError().withThrowable(ex).log();
+                PARSE_ERROR_COUNTER.increment();
+            } finally {
+                PARSE_TIMER.recordSince(startedAt);
+            }
+        }
+        return null;
+    }
+
+    public static XMLStreamReader newXmlStreamReader(InputStream content) throws XMLStreamException {
+        return XML_INPUT_FACTORY.get().createXMLStreamReader(content);
+    }
 }
@@ -0,0 +1,99 @@
+package com.witcraft.dependencyscan;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingMvnRepositoryTest {
+    private static final List<String> VERSIONS = List.of("3.0", "2.0", "1.0");
+
+    @Test
+    void batchesOfTheSameArtifactShareOneLookup() throws Exception {
+        final CountDownLatch lookupStarted = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger delegateLookups = new AtomicInteger();
+        final CoalescingMvnRepository repository = CoalescingMvnRepository.of(new FixedRepository() {
+            @Override
+            public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+                delegateLookups.incrementAndGet();
+                lookupStarted.countDown();
+                try {
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.lookupArtifactVersions(dependency);
+            }
+        });
+
+        final CompletableFuture<List<ArtifactVersionHistory>> first = CompletableFuture.supplyAsync(() ->
+            repository.lookupAllArtifactVersions(List.of(dependency("1.0")), 1));
+        assertTrue(lookupStarted.await(10, TimeUnit.SECONDS));
+        final CompletableFuture<List<ArtifactVersionHistory>> second = CompletableFuture.supplyAsync(() ->
+            repository.lookupAllArtifactVersions(List.of(dependency("2.0")), 1));
+        // Gives the second batch time to find the first one's lookup in flight.
+        Thread.sleep(200);
+        release.countDown();
+
+        assertEquals(List.of("3.0", "2.0", "1.0"), fetchedVersions(first.get(10, TimeUnit.SECONDS).get(0)));
+        assertEquals(List.of("3.0", "2.0"), fetchedVersions(second.get(10, TimeUnit.SECONDS).get(0)));
+        assertEquals(1, delegateLookups.get());
+        assertEquals(1, repository.getLookupCount());
+        assertEquals(1, repository.getCoalescedCount());
+    }
+
+    @Test
+    void versionsInOneBatchShareTheOldestOnesLookup() {
+        final CoalescingMvnRepository repository = CoalescingMvnRepository.of(new FixedRepository());
+        final List<ArtifactVersionHistory> results = repository.lookupAllArtifactVersions(List.of(dependency("2.0"), dependency("1.0")), 2);
+        assertEquals(List.of("3.0", "2.0"), fetchedVersions(results.get(0)));
+        assertEquals(List.of("3.0", "2.0", "1.0"), fetchedVersions(results.get(1)));
+        assertEquals(1, repository.getLookupCount());
+        assertEquals(1, repository.getCoalescedCount());
+    }
+
+    private static DependencyInfo dependency(String version) {
+        return DependencyInfo.builder()
+            .withGroupId("org.example")
+            .withArtifactId("library")
+            .withVersion(version)
+            .build();
+    }
+
+    private static List<String> fetchedVersions(ArtifactVersionHistory versionHistory) {
+        return versionHistory.getFetchedVersions().stream().map(DependencyInfo::getVersion).toList();
+    }
+
+    // Lists VERSIONS newest first, down to the requested version.
+    private static class FixedRepository implements MvnRepository {
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+            final ArtifactVersionHistory versionHistory = ArtifactVersionHistory.of(dependency);
+            for (String version : VERSIONS) {
+                versionHistory.addVersion(dependency.toVersion(version, Instant.EPOCH));
+                if (version.equals(dependency.getVersion())) {
+                    break;
+                }
+            }
+            return versionHistory;
+        }
+
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+            return lookupArtifactVersions(dependency);
+        }
+
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+            return (start > 0 ? ArtifactVersionHistory.of(dependency) : lookupArtifactVersions(dependency));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.witcraft.dependencyscan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DependencyGraphResolverTest {
+    @Test
+    void compileParentPassesTheDeclaredScopeOn() {
+        assertEquals("compile", DependencyGraphResolver.mediateScope("compile", "compile"));
+        assertEquals("runtime", DependencyGraphResolver.mediateScope("compile", "runtime"));
+    }
+
+    @Test
+    void narrowerParentScopeWins() {
+        assertEquals("runtime", DependencyGraphResolver.mediateScope("runtime", "compile"));
+        assertEquals("runtime", DependencyGraphResolver.mediateScope("runtime", "runtime"));
+        assertEquals("provided", DependencyGraphResolver.mediateScope("provided", "compile"));
+        assertEquals("provided", DependencyGraphResolver.mediateScope("provided", "runtime"));
+        assertEquals("test", DependencyGraphResolver.mediateScope("test", "compile"));
+        assertEquals("test", DependencyGraphResolver.mediateScope("test", "runtime"));
+    }
+
+    @Test
+    void nonTransitiveScopesAreLeftOut() {
+        for (String parentScope : Set.of("compile", "runtime", "provided", "test")) {
+            assertNull(DependencyGraphResolver.mediateScope(parentScope, "provided"), parentScope + "/provided");
+            assertNull(DependencyGraphResolver.mediateScope(parentScope, "test"), parentScope + "/test");
+            assertNull(DependencyGraphResolver.mediateScope(parentScope, "system"), parentScope + "/system");
+        }
+    }
+
+    @Test
+    void unknownParentScopeIsLeftOut() {
+        assertNull(DependencyGraphResolver.mediateScope("system", "compile"));
+        assertNull(DependencyGraphResolver.mediateScope("import", "compile"));
+    }
+
+    @Test
+    void exclusionsMatchExactlyOrByWildcard() {
+        final DependencyDeclaration declaration = new DependencyDeclaration("org.example", "library", "1.0", "compile", "jar");
+        assertTrue(DependencyGraphResolver.isExcluded(Set.of("org.example:library"), declaration));
+        assertTrue(DependencyGraphResolver.isExcluded(Set.of("org.example:*"), declaration));
+        assertTrue(DependencyGraphResolver.isExcluded(Set.of("*:library"), declaration));
+        assertTrue(DependencyGraphResolver.isExcluded(Set.of("*:*"), declaration));
+        assertFalse(DependencyGraphResolver.isExcluded(Set.of("org.example:other", "org.other:*"), declaration));
+        assertFalse(DependencyGraphResolver.isExcluded(Set.of(), declaration));
+    }
+}
@@ -0,0 +1,44 @@
+package com.witcraft.dependencyscan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MavenMetadataTest {
+    private static final List<String> VERSIONS = List.of("0.9", "1.0.0", "1.1", "1.2", "2.0");
+
+    @Test
+    void stopsAtTheCurrentVersion() {
+        assertEquals(List.of("2.0", "1.2", "1.1", "1.0.0"), fetchedVersions("1.0.0"));
+    }
+
+    @Test
+    void stopsAtTheCurrentVersionWrittenDifferently() {
+        assertEquals(List.of("2.0", "1.2", "1.1"), fetchedVersions("1.0"));
+    }
+
+    @Test
+    void stopsBeforeOlderVersionsWhenTheCurrentOneIsNotListed() {
+        assertEquals(List.of("2.0", "1.2"), fetchedVersions("1.1.5"));
+    }
+
+    @Test
+    void olderVersionsAreNotUpgrades() {
+        final ArtifactVersionHistory versionHistory = new MavenMetadata()
+            .mergeVersions(VERSIONS)
+            .toVersionHistory(ArtifactVersionHistory.of("org.example", "library", "1.1.5").getDependency());
+        assertEquals(List.of("1.2"), versionHistory.getUpgradeVersions().stream().map(DependencyInfo::getVersion).toList());
+    }
+
+    private static List<String> fetchedVersions(String currentVersion) {
+        return new MavenMetadata()
+            .mergeVersions(VERSIONS)
+            .toVersionHistory(ArtifactVersionHistory.of("org.example", "library", currentVersion).getDependency())
+            .getFetchedVersions()
+            .stream()
+            .map(DependencyInfo::getVersion)
+            .toList();
+    }
+}
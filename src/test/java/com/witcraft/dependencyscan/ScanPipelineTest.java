@@ -0,0 +1,75 @@
+package com.witcraft.dependencyscan;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanPipelineTest {
+    @Test
+    void everyDependencyIsReportedWithMoreDependenciesThanQueueRoom() throws Exception {
+        final ConcurrentLinkedQueue<ArtifactVersionHistory> results = new ConcurrentLinkedQueue<>();
+        ScanPipeline.builder(ScanPipeline.Source.of(List.of(module(500))), new FailingRepository(null))
+            .withQueueCapacity(4)
+            .withLookupWorkers(8)
+            .withMaxBatchSize(3)
+            .build()
+            .consume(results::add)
+            .get(30, TimeUnit.SECONDS);
+        assertEquals(500, results.size());
+    }
+
+    @Test
+    void errorsFromTheRepositoryMarkTheirBatchIncomplete() throws Exception {
+        final ConcurrentLinkedQueue<ArtifactVersionHistory> results = new ConcurrentLinkedQueue<>();
+        ScanPipeline.builder(ScanPipeline.Source.of(List.of(module(20))), new FailingRepository(new StackOverflowError()))
+            .withLookupWorkers(2)
+            .withMaxBatchSize(4)
+            .build()
+            .consume(results::add)
+            .get(30, TimeUnit.SECONDS);
+        assertEquals(20, results.size());
+        assertTrue(results.stream().noneMatch(ArtifactVersionHistory::isComplete));
+    }
+
+    private static ReactorModule module(int dependencyCount) {
+        final Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+        for (int i = 0; i < dependencyCount; i++) {
+            final DependencyInfo dependency = DependencyInfo.builder()
+                .withGroupId("org.example")
+                .withArtifactId("library-" + i)
+                .withVersion("1.0")
+                .build();
+            dependencies.put(dependency.getGroupArtifact(), dependency);
+        }
+        return new ReactorModule("module", Path.of("pom.xml"), dependencies);
+    }
+
+    // Answers with an empty history, or throws the given error.
+    private record FailingRepository(Error error) implements MvnRepository {
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency) {
+            if (error != null) {
+                throw error;
+            }
+            return ArtifactVersionHistory.of(dependency);
+        }
+
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize) {
+            return lookupArtifactVersions(dependency);
+        }
+
+        @Override
+        public ArtifactVersionHistory lookupArtifactVersions(DependencyInfo dependency, int pageSize, int start) {
+            return lookupArtifactVersions(dependency);
+        }
+    }
+}
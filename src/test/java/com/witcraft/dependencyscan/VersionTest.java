@@ -0,0 +1,91 @@
+package com.witcraft.dependencyscan;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionTest {
+    @Test
+    void trailingZerosAndReleaseQualifiersAreEqual() {
+        assertEqualVersions("1.0", "1.0.0");
+        assertEqualVersions("1", "1.0.0");
+        assertEqualVersions("1.0", "1.0-ga");
+        assertEqualVersions("1.0", "1.0-final");
+        assertEqualVersions("1.0", "1.0-release");
+        assertEqualVersions("1.0-RC1", "1.0-rc-1");
+    }
+
+    @Test
+    void qualifiersAreOrderedLikeMaven() {
+        assertAscending(
+            "1.0-alpha-1",
+            "1.0-alpha-2",
+            "1.0-beta-1",
+            "1.0-milestone-1",
+            "1.0-rc-1",
+            "1.0-SNAPSHOT",
+            "1.0",
+            "1.0-sp-1",
+            "1.0-unknown",
+            "1.0.1"
+        );
+    }
+
+    @Test
+    void shorthandQualifiersMatchTheirLongForms() {
+        assertEqualVersions("1.0-a1", "1.0-alpha-1");
+        assertEqualVersions("1.0-b1", "1.0-beta-1");
+        assertEqualVersions("1.0-m1", "1.0-milestone-1");
+        assertEqualVersions("1.0-cr1", "1.0-rc-1");
+    }
+
+    @Test
+    void snapshotIsOlderThanItsRelease() {
+        assertTrue(Version.parse("2.1-SNAPSHOT").compareTo(Version.parse("2.1")) < 0);
+        assertTrue(Version.parse("2.1-SNAPSHOT").compareTo(Version.parse("2.0.9")) > 0);
+        assertTrue(Version.parse("2.1-SNAPSHOT").isPrerelease());
+    }
+
+    @Test
+    void numbersCompareNumerically() {
+        assertAscending("1.9", "1.10", "1.10.1", "10.0");
+        assertAscending("1.0.9999999999999999999", "1.0.10000000000000000000");
+    }
+
+    @Test
+    void releasesAreNotPrereleases() {
+        assertFalse(Version.parse("1.0").isPrerelease());
+        assertFalse(Version.parse("1.0-sp-1").isPrerelease());
+        assertTrue(Version.parse("1.0-beta-2").isPrerelease());
+    }
+
+    @Test
+    void componentsAreReadFromTheLeadingNumbers() {
+        final Version version = Version.parse("3.12.4-jre");
+        assertEquals(3, version.getComponentCount());
+        assertEquals(3, version.getMajor());
+        assertEquals(12, version.getMinor());
+        assertEquals(4, version.getPatch());
+        assertEquals("-jre", version.getSuffix());
+    }
+
+    private static void assertEqualVersions(String first, String second) {
+        final Version a = Version.parse(first);
+        final Version b = Version.parse(second);
+        assertEquals(0, a.compareTo(b), first + " <=> " + second);
+        assertEquals(a, b, first + " equals " + second);
+        assertEquals(a.hashCode(), b.hashCode(), first + " hash " + second);
+    }
+
+    private static void assertAscending(String... values) {
+        final List<Version> versions = List.of(values).stream().map(Version::parse).toList();
+        for (int i = 1; i < versions.size(); i++) {
+            assertTrue(versions.get(i - 1).compareTo(versions.get(i)) < 0, values[i - 1] + " < " + values[i]);
+            assertTrue(versions.get(i).compareTo(versions.get(i - 1)) > 0, values[i] + " > " + values[i - 1]);
+        }
+    }
+}